@@ -17,6 +17,7 @@
 package ai.kompile.anserini;
 
 import ai.kompile.core.retrievers.DocumentRetriever;
+import ai.kompile.core.retrievers.RetrievedDoc;
 import ai.kompile.anserini.config.AnseriniConfig;
 import ai.kompile.core.indexers.IndexerService;
 
@@ -39,8 +40,10 @@ import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 @Service("anseriniDocumentRetriever")
@@ -117,32 +120,7 @@ public class AnseriniDocumentRetrieverImpl implements DocumentRetriever {
             logger.debug("Anserini found {} hits for query: '{}'", hits.length, query);
 
             return Arrays.stream(hits)
-                    .map(hit -> {
-                        // Use fully qualified name for org.apache.lucene.document.Document
-                        org.apache.lucene.document.Document luceneDoc = searcher.doc(hit.lucene_docid);
-                        if (luceneDoc == null) {
-                            logger.warn("Could not retrieve Lucene document by internal luceneDocid: {}. Trying external docid: {}", hit.lucene_docid, hit.docid);
-                            luceneDoc = searcher.doc(hit.docid);
-                        }
-
-                        if (luceneDoc != null) {
-                            String rawContent = luceneDoc.get("raw");
-                            if (rawContent != null) {
-                                return rawContent;
-                            } else {
-                                String contentsField = luceneDoc.get("contents");
-                                if (contentsField != null) {
-                                    logger.trace("Retrieved from 'contents' field for docid: {}", hit.docid);
-                                    return contentsField;
-                                }
-                            }
-                            logger.warn("Neither 'raw' nor 'contents' field found for Lucene doc (external id: {} / internal id: {})", hit.docid, hit.lucene_docid);
-                            return "[Content not available in stored fields for doc " + hit.docid + "]";
-                        } else {
-                            logger.warn("Could not retrieve Lucene document for external_id: {}, lucene_id: {}", hit.docid, hit.lucene_docid);
-                            return "[Could not retrieve document " + hit.docid + "]";
-                        }
-                    })
+                    .map(this::content)
                     .filter(Objects::nonNull)
                     .collect(Collectors.toList());
         } catch (IOException e) {
@@ -153,4 +131,87 @@ public class AnseriniDocumentRetrieverImpl implements DocumentRetriever {
             return Collections.singletonList("Unexpected error during search: " + e.getMessage());
         }
     }
+
+    @Override
+    public List<RetrievedDoc> retrieveWithScores(String query, int maxResults) {
+        if (this.searcher == null) {
+            logger.error("Anserini SimpleSearcher is not initialized. Cannot perform search. Indexing might have failed or index is unavailable.");
+            return Collections.emptyList();
+        }
+        if (query == null || query.trim().isEmpty()) {
+            logger.warn("Search query is null or empty.");
+            return Collections.emptyList();
+        }
+
+        logger.debug("Anserini retrieving (with scores) for query: '{}', maxResults: {}", query, maxResults);
+        try {
+            ScoredDoc[] hits = searcher.search(query, maxResults);
+            if (hits == null) {
+                logger.warn("Anserini search returned null for query: {}", query);
+                return Collections.emptyList();
+            }
+            logger.debug("Anserini found {} hits for query: '{}'", hits.length, query);
+            return Arrays.stream(hits)
+                    .map(hit -> new RetrievedDoc(hit.docid, content(hit), hit.score, Map.of("retriever", "anserini")))
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            logger.error("Error during Anserini search for query '{}': {}", query, e.getMessage(), e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Searches all queries with Anserini's multi-threaded batch search, one result list per query in query order.
+     */
+    @Override
+    public List<List<RetrievedDoc>> retrieveWithScoresBatch(List<String> queries, int maxResults) {
+        if (this.searcher == null) {
+            logger.error("Anserini SimpleSearcher is not initialized. Cannot perform batch search.");
+            return queries.stream().map(q -> Collections.<RetrievedDoc>emptyList()).collect(Collectors.toList());
+        }
+        List<String> qids = IntStream.range(0, queries.size()).mapToObj(String::valueOf).collect(Collectors.toList());
+        int threads = Math.max(1, Math.min(queries.size(), Runtime.getRuntime().availableProcessors()));
+        logger.debug("Anserini batch retrieving (with scores) for {} queries, maxResults: {}, threads: {}", queries.size(), maxResults, threads);
+        try {
+            Map<String, ScoredDoc[]> results = searcher.batch_search(queries, qids, maxResults, threads);
+            return qids.stream()
+                    .map(qid -> {
+                        ScoredDoc[] hits = results.get(qid);
+                        return hits == null ? Collections.<RetrievedDoc>emptyList() : Arrays.stream(hits)
+                                .map(hit -> new RetrievedDoc(hit.docid, content(hit), hit.score, Map.of("retriever", "anserini")))
+                                .collect(Collectors.toList());
+                    })
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            logger.error("Error during Anserini batch search for {} queries: {}", queries.size(), e.getMessage(), e);
+            return queries.stream().map(q -> Collections.<RetrievedDoc>emptyList()).collect(Collectors.toList());
+        }
+    }
+
+    private String content(ScoredDoc hit) {
+        // Use fully qualified name for org.apache.lucene.document.Document
+        org.apache.lucene.document.Document luceneDoc = searcher.doc(hit.lucene_docid);
+        if (luceneDoc == null) {
+            logger.warn("Could not retrieve Lucene document by internal luceneDocid: {}. Trying external docid: {}", hit.lucene_docid, hit.docid);
+            luceneDoc = searcher.doc(hit.docid);
+        }
+
+        if (luceneDoc != null) {
+            String rawContent = luceneDoc.get("raw");
+            if (rawContent != null) {
+                return rawContent;
+            } else {
+                String contentsField = luceneDoc.get("contents");
+                if (contentsField != null) {
+                    logger.trace("Retrieved from 'contents' field for docid: {}", hit.docid);
+                    return contentsField;
+                }
+            }
+            logger.warn("Neither 'raw' nor 'contents' field found for Lucene doc (external id: {} / internal id: {})", hit.docid, hit.lucene_docid);
+            return "[Content not available in stored fields for doc " + hit.docid + "]";
+        } else {
+            logger.warn("Could not retrieve Lucene document for external_id: {}, lucene_id: {}", hit.docid, hit.lucene_docid);
+            return "[Could not retrieve document " + hit.docid + "]";
+        }
+    }
 }
\ No newline at end of file
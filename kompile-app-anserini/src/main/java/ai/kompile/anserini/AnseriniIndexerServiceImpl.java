@@ -45,6 +45,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Stream;
@@ -87,14 +88,32 @@ public class AnseriniIndexerServiceImpl implements IndexerService {
         }
     }
 
+    /**
+     * Streams the sources batch by batch: each batch goes to the vector store and is staged as JSON for the
+     * keyword index before the next one is loaded, so only one batch of documents is held in memory. The
+     * keyword index is built from the staging directory once all batches are written.
+     */
     @Override
     public void reprocessAndIndexAllSources() throws IOException {
         logger.info("Full re-processing and indexing of all sources triggered (Keyword Index + Vector Store).");
-        List<Document> allLoadedDocs = documentLoadingService.loadAllConfiguredDocuments();
+        Path stagingPath = prepareStagingDirectory();
+        int loadedDocs = 0;
+        int stagedDocs = 0;
+        int batches = 0;
+        try (Stream<List<Document>> documentBatches = documentLoadingService.streamAllConfiguredDocuments()) {
+            Iterator<List<Document>> iterator = documentBatches.iterator();
+            while (iterator.hasNext()) {
+                List<Document> batch = iterator.next();
+                batches++;
+                loadedDocs += batch.size();
+                logger.info("Indexing batch {} of {} documents ({} loaded so far).", batches, batch.size(), loadedDocs);
+                addToVectorStore(batch);
+                stagedDocs = stageForKeywordIndex(batch, stagingPath, stagedDocs);
+            }
+        }
 
-        if (allLoadedDocs == null || allLoadedDocs.isEmpty()) {
+        if (loadedDocs == 0) {
             logger.warn("No documents loaded from sources. Both keyword index and vector store will be (or remain) empty/minimal.");
-            createOrClearAnseriniKeywordIndex(Collections.emptyList());
             if (vectorStore != null) {
                 try {
                     vectorStore.add(Collections.emptyList());
@@ -102,22 +121,24 @@ public class AnseriniIndexerServiceImpl implements IndexerService {
                     logger.error("Error when calling add with empty list on vector store: {}", e.getMessage(), e);
                 }
             }
-            return;
+        } else {
+            logger.info("Loaded {} documents from sources for indexing in {} batch(es).", loadedDocs, batches);
         }
-        logger.info("Loaded {} documents from sources for indexing.", allLoadedDocs.size());
+        buildKeywordIndex(stagingPath, stagedDocs);
+    }
 
-        if (vectorStore != null) {
-            try {
-                logger.info("Populating Vector Store with {} documents...", allLoadedDocs.size());
-                vectorStore.add(allLoadedDocs);
-                logger.info("Successfully submitted documents to Vector Store.");
-            } catch (Exception e) {
-                logger.error("Failed to populate Vector Store: {}. Keyword indexing will still proceed.", e.getMessage(), e);
-            }
-        } else {
+    private void addToVectorStore(List<Document> batch) {
+        if (vectorStore == null) {
             logger.warn("VectorStore bean is not available. Skipping vector store population.");
+            return;
+        }
+        try {
+            logger.info("Populating Vector Store with {} documents...", batch.size());
+            vectorStore.add(batch);
+            logger.info("Successfully submitted documents to Vector Store.");
+        } catch (Exception e) {
+            logger.error("Failed to populate Vector Store: {}. Keyword indexing will still proceed.", e.getMessage(), e);
         }
-        createOrClearAnseriniKeywordIndex(allLoadedDocs);
     }
 
     @Override
@@ -142,16 +163,23 @@ public class AnseriniIndexerServiceImpl implements IndexerService {
     }
 
     private void createOrClearAnseriniKeywordIndex(List<Document> springAiDocuments) throws IOException {
-        // ... (Content of this method for JSON staging and IndexCollection remains exactly as in the previous response)
+        Path stagingPath = prepareStagingDirectory();
+        logger.info("Preparing Anserini keyword index for {} documents.", springAiDocuments == null ? 0 : springAiDocuments.size());
+        int docCounter = stageForKeywordIndex(springAiDocuments, stagingPath, 0);
+        buildKeywordIndex(stagingPath, docCounter);
+    }
+
+    /**
+     * Cleans or creates the staging directory that collects one JSON file per document for IndexCollection.
+     */
+    private Path prepareStagingDirectory() throws IOException {
         if (anseriniConfig.getCorpusPath() == null || anseriniConfig.getIndexPath() == null) {
             String msg = "Anserini corpusPath (for staging) or indexPath is not configured. Cannot create keyword index.";
             logger.error(msg);
             throw new IOException(msg);
         }
         Path stagingPath = Paths.get(anseriniConfig.getCorpusPath());
-        Path indexPath = Paths.get(anseriniConfig.getIndexPath());
-        logger.info("Preparing Anserini keyword index for {} documents. Staging JSON at: {}, Final index at: {}",
-                springAiDocuments == null ? 0 : springAiDocuments.size(), stagingPath, indexPath);
+        logger.info("Staging JSON for the keyword index at: {}, final index at: {}", stagingPath, anseriniConfig.getIndexPath());
 
         // 1. Clean or create staging directory
         if (Files.exists(stagingPath)) {
@@ -161,9 +189,17 @@ public class AnseriniIndexerServiceImpl implements IndexerService {
         }
         Files.createDirectories(stagingPath);
         logger.info("Keyword index staging directory {} prepared.", stagingPath);
+        return stagingPath;
+    }
 
+    /**
+     * Writes the documents as Anserini JSON into the staging directory, numbering them from {@code docCounter}.
+     *
+     * @return the next free document number
+     */
+    private int stageForKeywordIndex(List<Document> springAiDocuments, Path stagingPath, int docCounter) {
         // 2. Convert Spring AI Documents to Anserini-consumable JSON
-        int docCounter = 0;
+        int firstDoc = docCounter;
         if (springAiDocuments != null && !springAiDocuments.isEmpty()) {
             for (Document springDoc : springAiDocuments) {
                 if (springDoc == null || springDoc.getText() == null || springDoc.getText().trim().isEmpty()) {
@@ -205,7 +241,15 @@ public class AnseriniIndexerServiceImpl implements IndexerService {
                 }
             }
         }
-        logger.info("{} documents for Anserini keyword index converted to JSON and written to staging directory {}.", docCounter, stagingPath);
+        logger.info("{} documents for Anserini keyword index converted to JSON and written to staging directory {}.", docCounter - firstDoc, stagingPath);
+        return docCounter;
+    }
+
+    /**
+     * Builds the keyword index from the staging directory, replacing any existing index.
+     */
+    private void buildKeywordIndex(Path stagingPath, int docCounter) throws IOException {
+        Path indexPath = Paths.get(anseriniConfig.getIndexPath());
 
         // 3. Clean or create the final Anserini index directory
         if (Files.exists(indexPath)) {
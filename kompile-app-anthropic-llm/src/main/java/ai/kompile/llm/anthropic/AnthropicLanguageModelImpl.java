@@ -17,6 +17,7 @@
 package ai.kompile.llm.anthropic;
 
 import ai.kompile.core.llm.LanguageModel;
+import ai.kompile.core.llm.PromptLayout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
@@ -25,15 +26,14 @@ import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.chat.prompt.SystemPromptTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 // Import metadata classes
 import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
@@ -48,31 +48,27 @@ public class AnthropicLanguageModelImpl implements LanguageModel {
 
     private static final Logger logger = LoggerFactory.getLogger(AnthropicLanguageModelImpl.class);
     private final ChatClient chatClient;
+    private final String modelName;
 
     @Autowired
-    public AnthropicLanguageModelImpl(ChatClient.Builder chatClientBuilder) {
+    public AnthropicLanguageModelImpl(ChatClient.Builder chatClientBuilder,
+                                      @Value("${spring.ai.anthropic.chat.options.model:claude-3-7-sonnet-latest}") String modelName) {
         // Spring AI auto-configuration with spring-ai-starter-model-anthropic
         // will provide a builder that creates an AnthropicChatClient.
         this.chatClient = chatClientBuilder.build();
+        this.modelName = modelName;
         logger.info("AnthropicLanguageModelImpl initialized with ChatClient: {}", this.chatClient.getClass().getName());
     }
 
+    @Override
+    public String getModelName() {
+        return modelName;
+    }
+
     @Override
     public String generateResponse(String userQuery, List<String> context) {
         logger.debug("Anthropic generating simple response for query: {}", userQuery);
-        String systemMessageContent = """
-                You are a helpful AI assistant. Answer the user's query based on the provided context.
-                If the context does not contain the answer, say that you don't know.
-                Context:
-                {context}
-                """;
-        SystemPromptTemplate systemPromptTemplate = new SystemPromptTemplate(systemMessageContent);
-        String contextString = (context == null) ? "" : context.stream().collect(Collectors.joining("\n---\n"));
-
-        Prompt prompt = new Prompt(List.of(
-                systemPromptTemplate.createMessage(Map.of("context", contextString)),
-                new UserMessage(userQuery)
-        ));
+        Prompt prompt = contextPrompt(userQuery, context);
 
         ChatResponse response = chatClient.prompt(prompt).call().chatResponse();
 
@@ -99,18 +95,14 @@ public class AnthropicLanguageModelImpl implements LanguageModel {
                 If the context does not contain the answer, consider using a tool.
                 Available tools are for RAG queries (rag_query), listing files (list_files), and reading files (read_file).
                 When responding, if you need to call a tool, use the exact tool names provided.
-                Context:
-                {context}
                 """;
-        SystemPromptTemplate systemPromptTemplate = new SystemPromptTemplate(systemMessageContent);
-        String contextString = (context == null) ? "" : context.stream().collect(Collectors.joining("\n---\n"));
 
         String[] toolNamesArray = {"rag_query", "list_files", "read_file"};
         logger.info("Advertising tools to Anthropic: {}", String.join(", ", toolNamesArray));
 
         ChatResponse response = chatClient.prompt()
                 .messages(
-                        systemPromptTemplate.createMessage(Map.of("context", contextString)),
+                        PromptLayout.systemMessage(systemMessageContent, context),
                         new UserMessage(userQuery)
                 )
                 .toolNames(toolNamesArray) // Standard Spring AI method to declare tools
@@ -120,4 +112,24 @@ public class AnthropicLanguageModelImpl implements LanguageModel {
         logger.debug("Anthropic LLM response (may include tool call): {}", response);
         return response;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Flux<String> streamResponse(String userQuery, List<String> context) {
+        logger.debug("Anthropic streaming response for query: {}", userQuery);
+        return chatClient.prompt(contextPrompt(userQuery, context))
+                .stream()
+                .content();
+    }
+
+    private Prompt contextPrompt(String userQuery, List<String> context) {
+        String systemMessageContent = """
+                You are a helpful AI assistant. Answer the user's query based on the provided context.
+                If the context does not contain the answer, say that you don't know.
+                """;
+
+        return new Prompt(List.of(
+                PromptLayout.systemMessage(systemMessageContent, context),
+                new UserMessage(userQuery)
+        ));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.llm.anthropic;
+
+import ai.kompile.core.llm.PromptCacheMetrics;
+import ai.kompile.core.llm.PromptLayout;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Adds prompt caching to the blocking Anthropic Messages API calls made by Spring AI, which (as of 1.0.0-M8)
+ * neither sends {@code cache_control} nor exposes the cache fields of the response usage.
+ * <p>
+ * With {@code cacheBreakpoints} set, the request's system prompt is split at the
+ * {@link PromptLayout} context header into an instructions block and a context block, each marked with an
+ * ephemeral {@code cache_control} breakpoint, and the last tool definition is marked as well. Anthropic caches
+ * the prefix up to each breakpoint (tools, then system, then messages), so repeated instructions and repeated
+ * context are billed and processed at the cached rate. Prefixes shorter than the model's minimum (1024 tokens
+ * for most models) are not cached.
+ * <p>
+ * Either way the response usage is read and published through {@link PromptCacheMetrics}:
+ * {@code cache_read_input_tokens} count as cached, {@code input_tokens} and {@code cache_creation_input_tokens}
+ * as uncached.
+ */
+public class AnthropicPromptCacheInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnthropicPromptCacheInterceptor.class);
+    private static final String PROVIDER = AnthropicLanguageModelImpl.class.getSimpleName();
+
+    private final ObjectMapper objectMapper;
+    private final boolean cacheBreakpoints;
+
+    public AnthropicPromptCacheInterceptor(ObjectMapper objectMapper, boolean cacheBreakpoints) {
+        this.objectMapper = objectMapper;
+        this.cacheBreakpoints = cacheBreakpoints;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        // The RestClient.Builder is shared with other providers; only Anthropic requests carry this header.
+        if (!request.getHeaders().containsKey("anthropic-version") || !request.getURI().getPath().endsWith("/messages")) {
+            return execution.execute(request, body);
+        }
+        byte[] requestBody = cacheBreakpoints ? withCacheBreakpoints(body) : body;
+        // The buffering request set Content-Length from the original body; factories that honor it would cut the longer one.
+        request.getHeaders().setContentLength(requestBody.length);
+        ClientHttpResponse response = execution.execute(request, requestBody);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        byte[] responseBody = response.getBody().readAllBytes();
+        recordUsage(responseBody);
+        return new BufferedResponse(response, responseBody);
+    }
+
+    byte[] withCacheBreakpoints(byte[] body) {
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            if (!(root instanceof ObjectNode request)) {
+                return body;
+            }
+            JsonNode system = request.get("system");
+            if (system != null && system.isTextual() && !system.asText().isEmpty()) {
+                request.set("system", systemBlocks(system.asText()));
+            }
+            JsonNode tools = request.get("tools");
+            if (tools instanceof ArrayNode toolArray && !toolArray.isEmpty() && toolArray.get(toolArray.size() - 1) instanceof ObjectNode lastTool) {
+                lastTool.set("cache_control", ephemeral());
+            }
+            return objectMapper.writeValueAsBytes(request);
+        } catch (IOException e) {
+            logger.warn("Could not add cache breakpoints to the Anthropic request; sending it unchanged: {}", e.getMessage());
+            return body;
+        }
+    }
+
+    private ArrayNode systemBlocks(String system) {
+        ArrayNode blocks = objectMapper.createArrayNode();
+        int contextStart = PromptLayout.contextStart(system);
+        if (contextStart <= 0) {
+            blocks.add(textBlock(system));
+        } else {
+            blocks.add(textBlock(system.substring(0, contextStart)));
+            blocks.add(textBlock(system.substring(contextStart)));
+        }
+        return blocks;
+    }
+
+    private ObjectNode textBlock(String text) {
+        ObjectNode block = objectMapper.createObjectNode();
+        block.put("type", "text");
+        block.put("text", text);
+        block.set("cache_control", ephemeral());
+        return block;
+    }
+
+    private ObjectNode ephemeral() {
+        return objectMapper.createObjectNode().put("type", "ephemeral");
+    }
+
+    private void recordUsage(byte[] responseBody) {
+        try {
+            JsonNode usage = objectMapper.readTree(responseBody).path("usage");
+            if (usage.isMissingNode()) {
+                return;
+            }
+            int uncached = usage.path("input_tokens").asInt(0);
+            int written = usage.path("cache_creation_input_tokens").asInt(0);
+            int read = usage.path("cache_read_input_tokens").asInt(0);
+            PromptCacheMetrics.record(PROVIDER, uncached + written + read, read);
+            logger.debug("Anthropic prompt tokens: {} read from cache, {} written to cache, {} uncached.", read, written, uncached);
+        } catch (IOException e) {
+            logger.debug("Could not read usage from the Anthropic response: {}", e.getMessage());
+        }
+    }
+
+    private record BufferedResponse(ClientHttpResponse delegate, byte[] body) implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.llm.anthropic.config;
+
+import ai.kompile.core.llm.config.LlmPromptProperties;
+import ai.kompile.llm.anthropic.AnthropicPromptCacheInterceptor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Installs {@link AnthropicPromptCacheInterceptor} on the RestClient.Builder that Spring AI uses for the
+ * Anthropic API. Cache breakpoints are only added with {@code app.llm.prompt.cache-friendly=true}; cached
+ * token usage is reported in both cases.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.ai.anthropic.api-key")
+public class AnthropicPromptCacheConfig {
+
+    @Bean
+    public RestClientCustomizer anthropicPromptCacheCustomizer(ObjectMapper objectMapper, LlmPromptProperties promptProperties) {
+        AnthropicPromptCacheInterceptor interceptor = new AnthropicPromptCacheInterceptor(objectMapper, promptProperties.isCacheFriendly());
+        return builder -> builder.requestInterceptor(interceptor);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.llm.anthropic;
+
+import ai.kompile.core.llm.PromptLayout;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sends a Messages request through a RestClient on the JDK HttpClient request factory to a local stub, so the
+ * rewritten body goes over the wire with the headers the client actually sends.
+ */
+class AnthropicPromptCacheInterceptorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile byte[] receivedBody;
+    private volatile String receivedContentLength;
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/messages", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void sendsTheWholeRewrittenBodyWithAMatchingContentLength() throws IOException {
+        String system = PromptLayout.systemMessage("Answer from the context.", List.of("first passage", "second passage")).getText();
+        Map<String, Object> request = Map.of(
+                "model", "claude-3-5-sonnet-latest",
+                "system", system,
+                "tools", List.of(Map.of("name", "search")),
+                "messages", List.of(Map.of("role", "user", "content", "question")));
+
+        String response = client(true).post()
+                .uri("/v1/messages")
+                .header("anthropic-version", "2023-06-01")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(request)
+                .retrieve()
+                .body(String.class);
+
+        assertThat(response).contains("\"usage\"");
+        assertThat(receivedContentLength).isEqualTo(String.valueOf(receivedBody.length));
+        JsonNode sent = objectMapper.readTree(receivedBody);
+        JsonNode blocks = sent.get("system");
+        assertThat(blocks.isArray()).isTrue();
+        assertThat(blocks).hasSize(2);
+        assertThat(blocks.get(0).path("cache_control").path("type").asText()).isEqualTo("ephemeral");
+        assertThat(blocks.get(1).path("text").asText()).startsWith(PromptLayout.CONTEXT_HEADER);
+        assertThat(blocks.get(0).path("text").asText() + blocks.get(1).path("text").asText()).isEqualTo(system);
+        assertThat(sent.path("tools").get(0).path("cache_control").path("type").asText()).isEqualTo("ephemeral");
+        assertThat(sent.path("messages").get(0).path("content").asText()).isEqualTo("question");
+    }
+
+    @Test
+    void leavesTheBodyUnchangedWithoutBreakpoints() throws IOException {
+        String body = "{\"system\":\"instructions\",\"messages\":[]}";
+
+        client(false).post()
+                .uri("/v1/messages")
+                .header("anthropic-version", "2023-06-01")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body)
+                .retrieve()
+                .toBodilessEntity();
+
+        assertThat(new String(receivedBody, StandardCharsets.UTF_8)).isEqualTo(body);
+        assertThat(receivedContentLength).isEqualTo(String.valueOf(body.length()));
+    }
+
+    private RestClient client(boolean cacheBreakpoints) {
+        return RestClient.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .requestFactory(new JdkClientHttpRequestFactory())
+                .requestInterceptor(new AnthropicPromptCacheInterceptor(objectMapper, cacheBreakpoints))
+                .build();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        receivedContentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        receivedBody = exchange.getRequestBody().readAllBytes();
+        byte[] response = "{\"usage\":{\"input_tokens\":10,\"cache_read_input_tokens\":0}}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+}
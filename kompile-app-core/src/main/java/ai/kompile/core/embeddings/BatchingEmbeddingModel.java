@@ -0,0 +1,201 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.embeddings;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decorates a Spring AI EmbeddingModel so that concurrent {@link #embed(String)} calls are coalesced.
+ * <p>
+ * A dispatcher thread collects pending texts for at most {@code window} or until {@code maxBatchSize}
+ * texts are queued, sends them as one {@code embed(List)} call and completes each caller's future.
+ * At most {@code maxConcurrentBatches} batches are in flight; while all are busy new texts keep
+ * accumulating, so batches grow with load instead of queueing up as single-text requests.
+ */
+public class BatchingEmbeddingModel implements org.springframework.ai.embedding.EmbeddingModel, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchingEmbeddingModel.class);
+
+    private final org.springframework.ai.embedding.EmbeddingModel delegate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingEmbedding> queue = new LinkedBlockingQueue<>();
+    private final Semaphore inFlight;
+    private final ExecutorService batchExecutor;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private record PendingEmbedding(String text, CompletableFuture<float[]> result) {
+    }
+
+    public BatchingEmbeddingModel(org.springframework.ai.embedding.EmbeddingModel delegate,
+                                  Duration window,
+                                  int maxBatchSize,
+                                  int maxConcurrentBatches) {
+        this.delegate = delegate;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        int concurrency = Math.max(1, maxConcurrentBatches);
+        this.inFlight = new Semaphore(concurrency);
+        AtomicInteger workerCount = new AtomicInteger();
+        this.batchExecutor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "embedding-batch-" + workerCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.dispatcher = new Thread(this::dispatchLoop, "embedding-batch-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+        logger.info("BatchingEmbeddingModel wrapping {} (window={}, maxBatchSize={}, maxConcurrentBatches={}).",
+                delegate.getClass().getSimpleName(), window, this.maxBatchSize, concurrency);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        if (text == null || !running) {
+            return delegate.embed(text);
+        }
+        PendingEmbedding pending = new PendingEmbedding(text, new CompletableFuture<>());
+        queue.add(pending);
+        if (!running && queue.remove(pending)) {
+            return delegate.embed(text);
+        }
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        batchExecutor.shutdown();
+        List<PendingEmbedding> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        failAll(abandoned, new IllegalStateException("Embedding batcher is shutting down"));
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            List<PendingEmbedding> batch = null;
+            try {
+                inFlight.acquire();
+                batch = nextBatch();
+                List<PendingEmbedding> toRun = batch;
+                batchExecutor.execute(() -> {
+                    try {
+                        runBatch(toRun);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failAll(batch, new IllegalStateException("Embedding batcher is shutting down"));
+                return;
+            } catch (RuntimeException e) {
+                inFlight.release();
+                logger.error("Embedding batch dispatch failed: {}", e.getMessage(), e);
+                failAll(batch, e);
+            }
+        }
+    }
+
+    private List<PendingEmbedding> nextBatch() throws InterruptedException {
+        List<PendingEmbedding> batch = new ArrayList<>(maxBatchSize);
+        batch.add(queue.take());
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            // Anything already queued joins immediately; otherwise wait out the rest of the window.
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            PendingEmbedding next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void runBatch(List<PendingEmbedding> batch) {
+        List<String> texts = batch.stream().map(PendingEmbedding::text).toList();
+        try {
+            List<float[]> vectors = delegate.embed(texts);
+            logger.debug("Coalesced {} concurrent embedding request(s) into one call.", texts.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (vectors != null && i < vectors.size()) {
+                    batch.get(i).result().complete(vectors.get(i));
+                } else {
+                    batch.get(i).result().completeExceptionally(
+                            new IllegalStateException("Embedding model returned fewer vectors than texts in the batch"));
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Batched embedding call for {} text(s) failed: {}", texts.size(), e.getMessage());
+            failAll(batch, e);
+        }
+    }
+
+    private static void failAll(List<PendingEmbedding> batch, RuntimeException cause) {
+        if (batch != null) {
+            batch.forEach(p -> p.result().completeExceptionally(cause));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.embeddings;
+
+import java.util.List;
+
+/**
+ * A provider-specific path for embedding many texts at once (token-aware batching, rate limiting, retries).
+ * When a bean is present, {@link EmbeddingModelPostProcessor} routes multi-text requests of the Spring AI
+ * EmbeddingModel it {@link #supports(org.springframework.ai.embedding.EmbeddingModel) supports} through it,
+ * so vector store ingest uses it too.
+ */
+public interface BulkEmbedder {
+
+    /**
+     * Whether this embedder talks to the same provider and model as {@code model}.
+     */
+    boolean supports(org.springframework.ai.embedding.EmbeddingModel model);
+
+    /**
+     * One vector per input, in input order. Inputs that were not embedded (e.g. blank ones) get null.
+     */
+    List<float[]> embedAll(List<String> texts);
+}
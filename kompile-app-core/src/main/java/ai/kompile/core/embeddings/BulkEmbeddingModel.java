@@ -0,0 +1,84 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.embeddings;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decorates a Spring AI EmbeddingModel so that requests with more than one input go through a
+ * {@link BulkEmbedder}. Single-text requests (queries) keep using the provider's own client. Inputs the bulk
+ * embedder leaves without a vector are embedded by the delegate.
+ */
+public class BulkEmbeddingModel implements org.springframework.ai.embedding.EmbeddingModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkEmbeddingModel.class);
+
+    private final org.springframework.ai.embedding.EmbeddingModel delegate;
+    private final BulkEmbedder bulkEmbedder;
+
+    public BulkEmbeddingModel(org.springframework.ai.embedding.EmbeddingModel delegate, BulkEmbedder bulkEmbedder) {
+        this.delegate = delegate;
+        this.bulkEmbedder = bulkEmbedder;
+        logger.info("BulkEmbeddingModel wrapping {} with {}.",
+                delegate.getClass().getSimpleName(), bulkEmbedder.getClass().getSimpleName());
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        if (texts == null || texts.size() < 2) {
+            return delegate.call(request);
+        }
+        List<float[]> vectors = new ArrayList<>(bulkEmbedder.embedAll(texts));
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < vectors.size(); i++) {
+            if (vectors.get(i) == null) {
+                missing.add(i);
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<String> missingTexts = missing.stream().map(texts::get).toList();
+            List<Embedding> fallback = delegate.call(new EmbeddingRequest(missingTexts, request.getOptions())).getResults();
+            for (int i = 0; i < missing.size(); i++) {
+                vectors.set(missing.get(i), fallback.get(i).getOutput());
+            }
+        }
+        List<Embedding> embeddings = new ArrayList<>(vectors.size());
+        for (int i = 0; i < vectors.size(); i++) {
+            embeddings.add(new Embedding(vectors.get(i), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.embeddings;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decorates a Spring AI EmbeddingModel with a {@link PersistentEmbeddingStore}, so every text that has
+ * been embedded once by the same model at the same dimensionality is served from disk afterwards.
+ * <p>
+ * All of Spring AI's embedding entry points (single text, text lists and the document batching path used
+ * by the vector stores) funnel into {@link #call(EmbeddingRequest)}, which only forwards cache misses.
+ */
+public class CachingEmbeddingModel implements org.springframework.ai.embedding.EmbeddingModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingEmbeddingModel.class);
+
+    private final org.springframework.ai.embedding.EmbeddingModel delegate;
+    private final PersistentEmbeddingStore store;
+    private final String defaultModelId;
+    private volatile int delegateDimensions = -1;
+
+    public CachingEmbeddingModel(org.springframework.ai.embedding.EmbeddingModel delegate,
+                                 PersistentEmbeddingStore store,
+                                 String defaultModelId) {
+        this.delegate = delegate;
+        this.store = store;
+        this.defaultModelId = defaultModelId;
+        logger.info("CachingEmbeddingModel wrapping {} with model id '{}'.", delegate.getClass().getSimpleName(), defaultModelId);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        if (texts == null || texts.isEmpty()) {
+            return delegate.call(request);
+        }
+        String modelId = modelId(request.getOptions());
+        int dims = dimensions(request.getOptions());
+
+        float[][] vectors = new float[texts.size()][];
+        Map<String, List<Integer>> missesByText = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            float[] cached = text == null ? null : lookup(modelId, dims, text);
+            if (cached != null) {
+                vectors[i] = cached;
+            } else {
+                missesByText.computeIfAbsent(text, t -> new ArrayList<>()).add(i);
+            }
+        }
+
+        if (missesByText.isEmpty()) {
+            logger.debug("Embedding cache served all {} text(s) for model '{}'.", texts.size(), modelId);
+            return toResponse(vectors, null);
+        }
+
+        List<String> missTexts = new ArrayList<>(missesByText.keySet());
+        logger.debug("Embedding cache: {} hit(s), {} unique miss(es) for model '{}'.",
+                texts.size() - missesByText.values().stream().mapToInt(List::size).sum(), missTexts.size(), modelId);
+        EmbeddingResponse response = delegate.call(new EmbeddingRequest(missTexts, request.getOptions()));
+        List<Embedding> results = response.getResults();
+        for (int m = 0; m < missTexts.size() && m < results.size(); m++) {
+            float[] vector = results.get(m).getOutput();
+            String text = missTexts.get(m);
+            for (int i : missesByText.get(text)) {
+                vectors[i] = vector;
+            }
+            if (text != null) {
+                store(modelId, dims, text, vector);
+            }
+        }
+        return toResponse(vectors, response);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    public org.springframework.ai.embedding.EmbeddingModel getDelegate() {
+        return delegate;
+    }
+
+    private float[] lookup(String modelId, int dims, String text) {
+        try {
+            return store.get(PersistentEmbeddingStore.key(modelId, dims, text));
+        } catch (IOException e) {
+            logger.warn("Embedding cache read failed, falling back to the model: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(String modelId, int dims, String text, float[] vector) {
+        try {
+            store.put(PersistentEmbeddingStore.key(modelId, dims, text), vector);
+        } catch (IOException e) {
+            logger.warn("Embedding cache write failed, the vector will be recomputed next time: {}", e.getMessage());
+        }
+    }
+
+    private String modelId(EmbeddingOptions options) {
+        return (options != null && options.getModel() != null) ? options.getModel() : defaultModelId;
+    }
+
+    private int dimensions(EmbeddingOptions options) {
+        if (options != null && options.getDimensions() != null) {
+            return options.getDimensions();
+        }
+        int dims = delegateDimensions;
+        if (dims <= 0) {
+            dims = delegate.dimensions();
+            delegateDimensions = dims;
+        }
+        return dims;
+    }
+
+    private static EmbeddingResponse toResponse(float[][] vectors, EmbeddingResponse delegateResponse) {
+        List<Embedding> embeddings = new ArrayList<>(vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            embeddings.add(new Embedding(vectors[i], i));
+        }
+        return delegateResponse != null
+                ? new EmbeddingResponse(embeddings, delegateResponse.getMetadata())
+                : new EmbeddingResponse(embeddings);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.embeddings;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decorates a Spring AI EmbeddingModel so it produces vectors of a reduced, Matryoshka-style dimension.
+ * <p>
+ * When {@code providerDimensions} is set the target size is passed as the request's {@code dimensions}
+ * option, which providers such as OpenAI's text-embedding-3 models honour server-side. Any vector that still
+ * comes back longer (providers without the option, or local models) is truncated to its leading components
+ * and L2-renormalized. {@link #dimensions()} reports the reduced size, so vector stores size their columns
+ * and indexes accordingly.
+ */
+public class DimensionTruncatingEmbeddingModel implements org.springframework.ai.embedding.EmbeddingModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(DimensionTruncatingEmbeddingModel.class);
+
+    private final org.springframework.ai.embedding.EmbeddingModel delegate;
+    private final int targetDimensions;
+    private final boolean providerDimensions;
+    private volatile int dimensions = -1;
+
+    public DimensionTruncatingEmbeddingModel(org.springframework.ai.embedding.EmbeddingModel delegate,
+                                             int targetDimensions,
+                                             boolean providerDimensions) {
+        this.delegate = delegate;
+        this.targetDimensions = targetDimensions;
+        this.providerDimensions = providerDimensions;
+        logger.info("DimensionTruncatingEmbeddingModel wrapping {} (dimensions={}, providerDimensions={}).",
+                delegate.getClass().getSimpleName(), targetDimensions, providerDimensions);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        EmbeddingResponse response = delegate.call(withDimensions(request));
+        List<Embedding> results = response.getResults();
+        boolean truncated = false;
+        List<Embedding> embeddings = new ArrayList<>(results.size());
+        for (Embedding embedding : results) {
+            float[] vector = embedding.getOutput();
+            if (vector != null && vector.length > targetDimensions) {
+                vector = truncate(vector, targetDimensions);
+                truncated = true;
+            }
+            embeddings.add(new Embedding(vector, embedding.getIndex(), embedding.getMetadata()));
+        }
+        return truncated ? new EmbeddingResponse(embeddings, response.getMetadata()) : response;
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        int dims = dimensions;
+        if (dims <= 0) {
+            int nativeDimensions = delegate.dimensions();
+            dims = nativeDimensions > 0 ? Math.min(nativeDimensions, targetDimensions) : targetDimensions;
+            dimensions = dims;
+        }
+        return dims;
+    }
+
+    /**
+     * Keeps the leading {@code dimensions} components and rescales them to unit length, which is what
+     * Matryoshka-trained models expect for cosine and inner-product search.
+     */
+    static float[] truncate(float[] vector, int dimensions) {
+        float[] truncated = Arrays.copyOf(vector, dimensions);
+        double sum = 0;
+        for (float v : truncated) {
+            sum += v * v;
+        }
+        double norm = Math.sqrt(sum);
+        if (norm > 0) {
+            for (int i = 0; i < truncated.length; i++) {
+                truncated[i] = (float) (truncated[i] / norm);
+            }
+        }
+        return truncated;
+    }
+
+    private EmbeddingRequest withDimensions(EmbeddingRequest request) {
+        if (!providerDimensions) {
+            return request;
+        }
+        EmbeddingOptions options = request.getOptions();
+        if (options != null && options.getDimensions() != null) {
+            return request;
+        }
+        if (options == null) {
+            return new EmbeddingRequest(request.getInstructions(),
+                    EmbeddingOptionsBuilder.builder().withDimensions(targetDimensions).build());
+        }
+        EmbeddingOptions sized = copyWithDimensions(options);
+        return sized != null ? new EmbeddingRequest(request.getInstructions(), sized) : request;
+    }
+
+    /**
+     * A copy of {@code options} of the same provider-specific type (keeping e.g. OpenAI's {@code user} and
+     * {@code encodingFormat}) with {@code dimensions} set, or null when the type cannot carry dimensions, in which
+     * case the vectors are only truncated locally.
+     */
+    private EmbeddingOptions copyWithDimensions(EmbeddingOptions options) {
+        try {
+            EmbeddingOptions copy = BeanUtils.instantiateClass(options.getClass());
+            BeanUtils.copyProperties(options, copy);
+            BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(copy);
+            if (!wrapper.isWritableProperty("dimensions")) {
+                return null;
+            }
+            wrapper.setPropertyValue("dimensions", targetDimensions);
+            return copy;
+        } catch (BeansException e) {
+            logger.debug("Cannot set dimensions on {}; truncating locally instead: {}",
+                    options.getClass().getSimpleName(), e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.embeddings;
+
+import ai.kompile.core.embeddings.config.EmbeddingProperties;
+import ai.kompile.core.rag.RagStageMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Wraps the Spring AI EmbeddingModel bean (OpenAI, ONNX transformers, ...) with the decorators enabled
+ * under {@code app.embedding.*}. Decorating the Spring AI bean rather than our own
+ * {@link EmbeddingModel} means the vector stores, which embed through Spring AI directly, benefit too.
+ */
+@Component
+public class EmbeddingModelPostProcessor implements BeanPostProcessor, EnvironmentAware, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingModelPostProcessor.class);
+
+    // Provider properties that identify the embedding model, checked in order when no explicit id is set.
+    private static final List<String> MODEL_ID_PROPERTIES = List.of(
+            "spring.ai.openai.embedding.options.model",
+            "spring.ai.embedding.transformer.onnx.model-uri",
+            "spring.ai.azure.openai.embedding.options.deployment-name",
+            "spring.ai.vertex.ai.embedding.text.options.model",
+            "spring.ai.vertex.ai.embedding.multimodal.options.model",
+            "spring.ai.ollama.embedding.options.model",
+            "spring.ai.mistralai.embedding.options.model",
+            "spring.ai.bedrock.titan.embedding.model",
+            "spring.ai.bedrock.cohere.embedding.model",
+            "spring.ai.oci.genai.embedding.model",
+            "spring.ai.zhipuai.embedding.options.model",
+            "spring.ai.minimax.embedding.options.model",
+            "spring.ai.postgresml.embedding.options.transformer");
+
+    private final ObjectProvider<EmbeddingProperties> propertiesProvider;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final ObjectProvider<BulkEmbedder> bulkEmbedderProvider;
+    private Environment environment;
+    private PersistentEmbeddingStore store;
+    private final List<BatchingEmbeddingModel> batchers = new CopyOnWriteArrayList<>();
+    // Wrapped beans that own resources. The decorators are not AutoCloseable, so Spring no longer closes them.
+    private final List<AutoCloseable> wrappedCloseables = new CopyOnWriteArrayList<>();
+
+    public EmbeddingModelPostProcessor(ObjectProvider<EmbeddingProperties> propertiesProvider,
+                                       ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                       ObjectProvider<BulkEmbedder> bulkEmbedderProvider) {
+        this.propertiesProvider = propertiesProvider;
+        this.meterRegistryProvider = meterRegistryProvider;
+        this.bulkEmbedderProvider = bulkEmbedderProvider;
+    }
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (!(bean instanceof org.springframework.ai.embedding.EmbeddingModel model)) {
+            return bean;
+        }
+        EmbeddingProperties properties = propertiesProvider.getIfAvailable(EmbeddingProperties::new);
+        String modelId = resolveModelId(properties, model);
+        // The class name is good enough to key the in-memory query cache, but not vectors kept on disk across
+        // restarts: the same class may load a different model after a configuration change.
+        String queryCacheModelId = modelId != null ? modelId : model.getClass().getName();
+        org.springframework.ai.embedding.EmbeddingModel undecorated = model;
+
+        // Innermost first: the provider's bulk path, dimension reduction, persistent cache, request coalescing,
+        // the in-memory query cache, then query-embedding timing on top.
+        BulkEmbedder bulkEmbedder = bulkEmbedderProvider.getIfAvailable();
+        if (bulkEmbedder != null && bulkEmbedder.supports(model)) {
+            model = new BulkEmbeddingModel(model, bulkEmbedder);
+        }
+
+        if (properties.getDimensions() != null && properties.getDimensions() > 0) {
+            model = new DimensionTruncatingEmbeddingModel(model, properties.getDimensions(), properties.isProviderDimensions());
+        }
+
+        EmbeddingProperties.Cache cacheConfig = properties.getCache();
+        if (cacheConfig.isEnabled() && modelId == null) {
+            logger.warn("Persistent embedding cache disabled for bean '{}': could not tell which model {} uses. "
+                    + "Set app.embedding.model-id to enable it.", beanName, bean.getClass().getName());
+        } else if (cacheConfig.isEnabled()) {
+            try {
+                model = new CachingEmbeddingModel(model, store(cacheConfig), modelId);
+                logger.info("Persistent embedding cache enabled for bean '{}' at {}.", beanName, cacheConfig.getPath());
+            } catch (IOException e) {
+                logger.error("Could not open embedding cache at {}. Continuing without it: {}", cacheConfig.getPath(), e.getMessage(), e);
+            }
+        }
+
+        EmbeddingProperties.Batching batchingConfig = properties.getBatching();
+        if (batchingConfig.isEnabled()) {
+            BatchingEmbeddingModel batcher = new BatchingEmbeddingModel(model, batchingConfig.getWindow(),
+                    batchingConfig.getMaxBatchSize(), batchingConfig.getMaxConcurrentBatches());
+            batchers.add(batcher);
+            model = batcher;
+        }
+
+        EmbeddingProperties.QueryCache queryCacheConfig = properties.getQueryCache();
+        if (queryCacheConfig.isEnabled()) {
+            model = new QueryCachingEmbeddingModel(model, queryCacheModelId,
+                    queryCacheConfig.getMaxEntries(), queryCacheConfig.getTtl(), queryCacheConfig.isLowercase(),
+                    meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry));
+        }
+        if (bean instanceof AutoCloseable closeable) {
+            wrappedCloseables.add(closeable);
+        }
+        return new TimedEmbeddingModel(model, undecorated, RagStageMetrics.providerName(bean),
+                meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        batchers.forEach(BatchingEmbeddingModel::close);
+        for (AutoCloseable closeable : wrappedCloseables) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                logger.warn("Failed to close embedding model {}: {}", closeable.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+        wrappedCloseables.clear();
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private synchronized PersistentEmbeddingStore store(EmbeddingProperties.Cache cacheConfig) throws IOException {
+        if (store == null) {
+            store = new PersistentEmbeddingStore(Paths.get(cacheConfig.getPath()), cacheConfig.getMaxSizeBytes());
+        }
+        return store;
+    }
+
+    /**
+     * The configured or provider-reported model id, or null if none is known.
+     */
+    private String resolveModelId(EmbeddingProperties properties, org.springframework.ai.embedding.EmbeddingModel model) {
+        if (properties.getModelId() != null && !properties.getModelId().isBlank()) {
+            return properties.getModelId();
+        }
+        if (model instanceof IdentifiedEmbeddingModel identified
+                && identified.getModelId() != null && !identified.getModelId().isBlank()) {
+            return identified.getModelId();
+        }
+        if (environment != null) {
+            for (String property : MODEL_ID_PROPERTIES) {
+                String value = environment.getProperty(property);
+                if (value != null && !value.isBlank()) {
+                    return value;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.embeddings;
+
+/**
+ * Implemented by Spring AI EmbeddingModel beans that know which model they actually loaded, e.g. when the
+ * model is picked from several properties. {@link EmbeddingModelPostProcessor} keys the embedding caches on
+ * {@link #getModelId()} unless {@code app.embedding.model-id} is set.
+ */
+public interface IdentifiedEmbeddingModel {
+
+    /**
+     * Identifies the model whose vectors this bean produces (a model name or URI). Two beans with the same id
+     * must produce interchangeable vectors.
+     */
+    String getModelId();
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.embeddings;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only, content-addressed store for embedding vectors.
+ * <p>
+ * Each record is {@code [32-byte SHA-256 key][int length][length floats]}. The key index is kept in
+ * memory (access ordered, so iteration goes from least to most recently used) and rebuilt by scanning
+ * the file on open. When the file grows past {@code maxSizeBytes} it is compacted, keeping only the
+ * most recently used entries.
+ */
+public class PersistentEmbeddingStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentEmbeddingStore.class);
+
+    private static final int MAGIC = 0x4B454D42; // "KEMB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int KEY_BYTES = 32;
+    private static final double COMPACTION_TARGET_RATIO = 0.75;
+
+    private final Path path;
+    private final long maxSizeBytes;
+    private final LinkedHashMap<ByteBuffer, Entry> index = new LinkedHashMap<>(1024, 0.75f, true);
+    private FileChannel channel;
+
+    private record Entry(long offset, int length) {
+        long recordBytes() {
+            return recordBytes(length);
+        }
+
+        static long recordBytes(int length) {
+            return KEY_BYTES + 4L + 4L * length;
+        }
+    }
+
+    public PersistentEmbeddingStore(Path path, long maxSizeBytes) throws IOException {
+        this.path = path.toAbsolutePath();
+        this.maxSizeBytes = maxSizeBytes;
+        if (this.path.getParent() != null) {
+            Files.createDirectories(this.path.getParent());
+        }
+        open();
+        logger.info("PersistentEmbeddingStore opened at {} with {} entries ({} bytes, limit {} bytes).",
+                this.path, index.size(), channel.size(), maxSizeBytes);
+    }
+
+    /**
+     * Builds the content-addressed key for a text embedded by the given model at the given dimensionality.
+     */
+    public static ByteBuffer key(String modelId, int dimensions, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(modelId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Integer.toString(dimensions).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest.digest()).asReadOnlyBuffer();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public synchronized float[] get(ByteBuffer key) throws IOException {
+        Entry entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 * entry.length());
+        readFully(buffer, entry.offset() + KEY_BYTES + 4);
+        buffer.flip();
+        float[] vector = new float[entry.length()];
+        buffer.asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    public synchronized void put(ByteBuffer key, float[] vector) throws IOException {
+        if (vector == null || index.containsKey(key)) {
+            return;
+        }
+        long offset = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate((int) Entry.recordBytes(vector.length));
+        buffer.put(key.duplicate().rewind());
+        buffer.putInt(vector.length);
+        buffer.asFloatBuffer().put(vector);
+        buffer.position(buffer.limit());
+        buffer.flip();
+        writeFully(channel, buffer, offset);
+
+        Entry entry = new Entry(offset, vector.length);
+        index.put(key, entry);
+
+        if (channel.size() > maxSizeBytes) {
+            compact();
+        }
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+            logger.info("PersistentEmbeddingStore at {} closed with {} entries.", path, index.size());
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index.clear();
+
+        if (channel.size() < HEADER_BYTES) {
+            channel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            writeFully(channel, header, 0);
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            logger.warn("Embedding cache file {} has an unknown format. Discarding its contents.", path);
+            channel.truncate(0);
+            header.clear();
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(channel, header, 0);
+            return;
+        }
+
+        long position = HEADER_BYTES;
+        long fileSize = channel.size();
+        ByteBuffer recordHeader = ByteBuffer.allocate(KEY_BYTES + 4);
+        while (position + recordHeader.capacity() <= fileSize) {
+            recordHeader.clear();
+            readFully(recordHeader, position);
+            recordHeader.flip();
+            byte[] keyBytes = new byte[KEY_BYTES];
+            recordHeader.get(keyBytes);
+            int length = recordHeader.getInt();
+            if (length <= 0 || position + Entry.recordBytes(length) > fileSize) {
+                break; // Torn write at the tail, e.g. after a crash. Everything before it is intact.
+            }
+            Entry entry = new Entry(position, length);
+            index.put(ByteBuffer.wrap(keyBytes).asReadOnlyBuffer(), entry);
+            position += entry.recordBytes();
+        }
+        if (position < fileSize) {
+            logger.warn("Truncating {} trailing bytes of incomplete record data in embedding cache {}.", fileSize - position, path);
+            channel.truncate(position);
+        }
+    }
+
+    /**
+     * Rewrites the file with the most recently used entries only, then swaps it in atomically.
+     */
+    private void compact() throws IOException {
+        long budget = (long) (maxSizeBytes * COMPACTION_TARGET_RATIO) - HEADER_BYTES;
+        List<Map.Entry<ByteBuffer, Entry>> newestFirst = new ArrayList<>(index.entrySet());
+        Collections.reverse(newestFirst);
+
+        List<Map.Entry<ByteBuffer, Entry>> kept = new ArrayList<>();
+        long keptBytes = 0;
+        for (Map.Entry<ByteBuffer, Entry> e : newestFirst) {
+            long recordBytes = e.getValue().recordBytes();
+            if (keptBytes + recordBytes > budget) {
+                break;
+            }
+            kept.add(e);
+            keptBytes += recordBytes;
+        }
+        Collections.reverse(kept); // Preserve LRU order in the rewritten file and index.
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+        LinkedHashMap<ByteBuffer, Entry> newIndex = new LinkedHashMap<>(Math.max(16, kept.size() * 2), 0.75f, true);
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            writeFully(out, header, 0);
+            long position = HEADER_BYTES;
+            for (Map.Entry<ByteBuffer, Entry> e : kept) {
+                ByteBuffer record = ByteBuffer.allocate((int) e.getValue().recordBytes());
+                readFully(record, e.getValue().offset());
+                record.flip();
+                writeFully(out, record, position);
+                newIndex.put(e.getKey(), new Entry(position, e.getValue().length()));
+                position += e.getValue().recordBytes();
+            }
+            out.force(false);
+        }
+
+        int before = index.size();
+        channel.close();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index.clear();
+        index.putAll(newIndex);
+        logger.info("Compacted embedding cache {}: evicted {} of {} entries, file is now {} bytes.",
+                path, before - index.size(), before, channel.size());
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of embedding cache file " + path);
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += target.write(buffer, position);
+        }
+    }
+}
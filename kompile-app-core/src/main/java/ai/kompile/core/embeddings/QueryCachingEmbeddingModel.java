@@ -0,0 +1,148 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.embeddings;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Decorates a Spring AI EmbeddingModel with a bounded, TTL-limited in-memory cache for
+ * {@link #embed(String)}. The vector stores embed the search query through that method, so repeated
+ * questions skip the embedding round trip. Batch and document embedding pass straight through.
+ * <p>
+ * Hits and misses are published as {@code kompile.embedding.query.cache} counters tagged with
+ * {@code result=hit|miss}.
+ */
+public class QueryCachingEmbeddingModel implements org.springframework.ai.embedding.EmbeddingModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCachingEmbeddingModel.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final org.springframework.ai.embedding.EmbeddingModel delegate;
+    private final String modelId;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final boolean lowercase;
+    private final Map<String, CachedVector> cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    private record CachedVector(float[] vector, long expiresAtNanos) {
+    }
+
+    public QueryCachingEmbeddingModel(org.springframework.ai.embedding.EmbeddingModel delegate,
+                                      String modelId,
+                                      int maxEntries,
+                                      Duration ttl,
+                                      boolean lowercase,
+                                      MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.modelId = modelId;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = ttl.toNanos();
+        this.lowercase = lowercase;
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedVector> eldest) {
+                return size() > QueryCachingEmbeddingModel.this.maxEntries;
+            }
+        };
+        this.hits = Counter.builder("kompile.embedding.query.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("kompile.embedding.query.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("kompile.embedding.query.cache.size", this, QueryCachingEmbeddingModel::size).register(meterRegistry);
+        logger.info("QueryCachingEmbeddingModel wrapping {} (maxEntries={}, ttl={}).",
+                delegate.getClass().getSimpleName(), this.maxEntries, ttl);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        if (text == null) {
+            return delegate.embed(text);
+        }
+        String key = key(text);
+        long now = System.nanoTime();
+        synchronized (cache) {
+            CachedVector cached = cache.get(key);
+            if (cached != null) {
+                if (now - cached.expiresAtNanos() < 0) {
+                    hits.increment();
+                    // Callers may normalize or otherwise modify the vector in place; hand out a copy.
+                    return cached.vector().clone();
+                }
+                cache.remove(key);
+            }
+        }
+        misses.increment();
+        float[] vector = delegate.embed(text);
+        if (vector != null) {
+            synchronized (cache) {
+                cache.put(key, new CachedVector(vector.clone(), now + ttlNanos));
+            }
+        }
+        return vector;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    public long getHitCount() {
+        return (long) hits.count();
+    }
+
+    public long getMissCount() {
+        return (long) misses.count();
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private String key(String text) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC)).replaceAll(" ").trim();
+        if (lowercase) {
+            normalized = normalized.toLowerCase(Locale.ROOT);
+        }
+        return modelId + '\u0000' + normalized;
+    }
+}
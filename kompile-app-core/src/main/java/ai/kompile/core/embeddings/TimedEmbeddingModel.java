@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.embeddings;
+
+import ai.kompile.core.rag.RagStageMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * Outermost decorator of the Spring AI EmbeddingModel: times single-text {@link #embed(String)} calls, the
+ * path used to embed search queries, as {@code kompile.rag.stage{stage=query_embedding}}. Cache hits of the
+ * decorators below are included, so the timer shows the latency retrieval actually sees.
+ */
+public class TimedEmbeddingModel implements org.springframework.ai.embedding.EmbeddingModel {
+
+    static final String STAGE = "query_embedding";
+
+    private final org.springframework.ai.embedding.EmbeddingModel delegate;
+    private final org.springframework.ai.embedding.EmbeddingModel undecorated;
+    private final String provider;
+    private final MeterRegistry meterRegistry;
+
+    public TimedEmbeddingModel(org.springframework.ai.embedding.EmbeddingModel delegate, String provider, MeterRegistry meterRegistry) {
+        this(delegate, delegate, provider, meterRegistry);
+    }
+
+    /**
+     * @param undecorated the provider's bean as registered, below all decorators
+     */
+    public TimedEmbeddingModel(org.springframework.ai.embedding.EmbeddingModel delegate,
+                               org.springframework.ai.embedding.EmbeddingModel undecorated,
+                               String provider, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.undecorated = undecorated;
+        this.provider = provider;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * The provider's EmbeddingModel without the {@code app.embedding.*} decorators, for callers whose texts
+     * should neither be cached nor count as query embeddings.
+     */
+    public org.springframework.ai.embedding.EmbeddingModel getUndecorated() {
+        return undecorated;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        long start = System.nanoTime();
+        String outcome = RagStageMetrics.ERROR;
+        try {
+            float[] vector = delegate.embed(text);
+            outcome = vector != null && vector.length > 0 ? RagStageMetrics.SUCCESS : RagStageMetrics.EMPTY;
+            return vector;
+        } finally {
+            RagStageMetrics.record(meterRegistry, STAGE, provider, outcome, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.embeddings.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings for the decorators that are layered around the Spring AI EmbeddingModel
+ * bean by {@link ai.kompile.core.embeddings.EmbeddingModelPostProcessor}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.embedding")
+public class EmbeddingProperties {
+
+    /**
+     * Optional explicit model id used in cache keys. If unset, the id is derived from the
+     * provider configuration (e.g. spring.ai.openai.embedding.options.model); if that fails too,
+     * the persistent cache stays off.
+     */
+    private String modelId;
+
+    /**
+     * Reduced output dimension for stored and query embeddings. Unset keeps the model's native size.
+     */
+    private Integer dimensions;
+
+    /**
+     * Passes {@link #dimensions} to the provider as the request's dimensions option. Disable for models
+     * that reject it (e.g. text-embedding-ada-002); vectors are then truncated and renormalized locally.
+     */
+    private boolean providerDimensions = true;
+
+    private Cache cache = new Cache();
+
+    private QueryCache queryCache = new QueryCache();
+
+    private Batching batching = new Batching();
+
+    @Data
+    public static class Cache {
+        /**
+         * Enables the persistent, content-addressed embedding cache.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Append-only file holding the cached vectors. Created on first use.
+         */
+        private String path = "./data/embedding_cache/embeddings.bin";
+
+        /**
+         * Upper bound for the cache file. When exceeded, the least recently used entries are dropped.
+         */
+        private long maxSizeBytes = 512L * 1024 * 1024;
+    }
+
+    @Data
+    public static class QueryCache {
+        /**
+         * Enables the in-memory LRU cache for single-text (query) embeddings.
+         */
+        private boolean enabled = true;
+
+        private int maxEntries = 10_000;
+
+        private Duration ttl = Duration.ofHours(1);
+
+        /**
+         * Lower-cases queries before keying. Raises the hit rate at the cost of ignoring case,
+         * which most embedding models are only mildly sensitive to.
+         */
+        private boolean lowercase = false;
+    }
+
+    @Data
+    public static class Batching {
+        /**
+         * Enables coalescing of concurrent single-text embedding calls into batched calls.
+         */
+        private boolean enabled = false;
+
+        /**
+         * How long the first text of a batch waits for others to join.
+         */
+        private Duration window = Duration.ofMillis(3);
+
+        private int maxBatchSize = 64;
+
+        private int maxConcurrentBatches = 4;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.embeddings.config;
+
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+
+/**
+ * Resolves embedding provider settings that can come from our own {@code app.embedding.*} properties, the
+ * matching {@code spring.ai.*} property or a built-in default.
+ */
+public final class ProviderSettings {
+
+    private ProviderSettings() {
+    }
+
+    /**
+     * The first value with text, in order of precedence, or null if there is none.
+     */
+    public static String firstNonBlank(String... values) {
+        return Arrays.stream(values).filter(StringUtils::hasText).findFirst().orElse(null);
+    }
+}
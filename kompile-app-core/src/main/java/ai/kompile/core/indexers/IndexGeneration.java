@@ -0,0 +1,46 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.indexers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic counter of index changes. Anything that writes to the keyword index or the vector store
+ * advances it (see {@link IndexGenerationPostProcessor}), so caches of derived results can tell whether
+ * they were computed against the current index.
+ */
+@Component
+public class IndexGeneration {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexGeneration.class);
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public long current() {
+        return generation.get();
+    }
+
+    public long advance(String reason) {
+        long next = generation.incrementAndGet();
+        logger.debug("Index generation advanced to {} ({}).", next, reason);
+        return next;
+    }
+}
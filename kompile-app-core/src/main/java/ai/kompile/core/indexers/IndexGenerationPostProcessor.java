@@ -0,0 +1,71 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.indexers;
+
+import ai.kompile.core.embeddings.VectorStore;
+import org.springframework.aop.TargetClassAware;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Wraps the {@link IndexerService} and {@link VectorStore} beans so that every call that changes the index
+ * advances the {@link IndexGeneration}, whichever module provides the implementation.
+ */
+@Component
+public class IndexGenerationPostProcessor implements BeanPostProcessor {
+
+    private static final Set<String> MUTATING_METHODS = Set.of("add", "delete", "indexDocuments", "reprocessAndIndexAllSources");
+
+    private final ObjectProvider<IndexGeneration> generationProvider;
+
+    public IndexGenerationPostProcessor(ObjectProvider<IndexGeneration> generationProvider) {
+        this.generationProvider = generationProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (!(bean instanceof IndexerService) && !(bean instanceof VectorStore)) {
+            return bean;
+        }
+        Set<Class<?>> interfaces = new LinkedHashSet<>(ClassUtils.getAllInterfacesAsSet(bean));
+        // Lets AopProxyUtils.ultimateTargetClass() (used for logging and metric tags) see the implementation class.
+        interfaces.add(TargetClassAware.class);
+        return Proxy.newProxyInstance(bean.getClass().getClassLoader(), interfaces.toArray(new Class<?>[0]), (proxy, method, args) -> {
+            if (method.getDeclaringClass() == TargetClassAware.class) {
+                return bean.getClass();
+            }
+            try {
+                return method.invoke(bean, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            } finally {
+                // Also on failure: a partially applied batch still changes what retrieval returns.
+                if (MUTATING_METHODS.contains(method.getName())) {
+                    generationProvider.getObject().advance(beanName + "." + method.getName());
+                }
+            }
+        });
+    }
+}
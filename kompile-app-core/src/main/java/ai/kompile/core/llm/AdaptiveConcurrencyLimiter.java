@@ -0,0 +1,234 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm;
+
+import ai.kompile.core.llm.config.LlmLimiterProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit for one language model provider that adapts to feedback: additive increase while calls
+ * succeed with the limit in use, multiplicative decrease when a call is throttled, overloaded, times out or
+ * is slower than the latency threshold. Callers over the limit wait in a bounded FIFO queue for a bounded
+ * time and are otherwise rejected with {@link LlmOverloadedException}, so latency stays bounded under
+ * overload instead of threads piling up behind a throttled provider.
+ * <p>
+ * Publishes {@code kompile.llm.limiter.queue} (time spent waiting for a slot, tagged admitted/rejected),
+ * {@code kompile.llm.limiter.rejected} and the {@code limit}, {@code inflight} and {@code queued} gauges,
+ * all tagged with the provider.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public enum Outcome {
+        /** The call completed normally. */
+        SUCCESS,
+        /** The provider signalled congestion (429, overloaded, timeout, too slow). */
+        DROPPED,
+        /** The call failed for a reason unrelated to load; the limit is left as is. */
+        IGNORED
+    }
+
+    private final String provider;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final int maxQueueSize;
+    private final long maxQueueWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotAvailable = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int queued;
+
+    private final Timer admittedWait;
+    private final Timer rejectedWait;
+    private final Counter rejected;
+
+    public AdaptiveConcurrencyLimiter(String provider, LlmLimiterProperties properties, MeterRegistry registry) {
+        this.provider = provider;
+        this.minLimit = Math.max(1, properties.getMinLimit());
+        this.maxLimit = Math.max(minLimit, properties.getMaxLimit());
+        this.backoffRatio = Math.min(Math.max(properties.getBackoffRatio(), 0.1), 0.99);
+        this.latencyThresholdNanos = properties.getLatencyThreshold().toNanos();
+        this.maxQueueSize = Math.max(0, properties.getMaxQueueSize());
+        this.maxQueueWaitNanos = Math.max(0, properties.getMaxQueueWait().toNanos());
+        this.limit = Math.min(Math.max(properties.getInitialLimit(), minLimit), maxLimit);
+
+        this.admittedWait = queueTimer(registry, "admitted");
+        this.rejectedWait = queueTimer(registry, "rejected");
+        this.rejected = Counter.builder("kompile.llm.limiter.rejected")
+                .description("Language model calls rejected by admission control")
+                .tag("provider", provider)
+                .register(registry);
+        Gauge.builder("kompile.llm.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit").tag("provider", provider).register(registry);
+        Gauge.builder("kompile.llm.limiter.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Language model calls in flight").tag("provider", provider).register(registry);
+        Gauge.builder("kompile.llm.limiter.queued", this, AdaptiveConcurrencyLimiter::getQueued)
+                .description("Language model calls waiting for a slot").tag("provider", provider).register(registry);
+    }
+
+    private Timer queueTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("kompile.llm.limiter.queue")
+                .description("Time language model calls waited for a concurrency slot")
+                .tag("provider", provider)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Takes a slot, waiting up to the configured queue wait if none is free.
+     *
+     * @throws LlmOverloadedException if the queue is full, the wait ran out or the thread was interrupted
+     */
+    public Permit acquire() {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            // Newcomers only bypass the queue when nobody is waiting, which keeps admission FIFO.
+            if (queued == 0 && inFlight < currentLimit()) {
+                inFlight++;
+                return admitted(start);
+            }
+            if (queued >= maxQueueSize) {
+                throw rejected(start, "wait queue is full (" + queued + " waiting, limit " + currentLimit() + ")");
+            }
+            queued++;
+            try {
+                long remaining = maxQueueWaitNanos;
+                while (inFlight >= currentLimit()) {
+                    if (remaining <= 0) {
+                        throw rejected(start, "no slot within " + TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos) + " ms");
+                    }
+                    remaining = slotAvailable.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw rejected(start, "interrupted while waiting for a slot");
+            } finally {
+                queued--;
+            }
+            inFlight++;
+            return admitted(start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean exceedsLatencyThreshold(long elapsedNanos) {
+        return latencyThresholdNanos > 0 && elapsedNanos > latencyThresholdNanos;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public double getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private Permit admitted(long start) {
+        admittedWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new Permit();
+    }
+
+    private LlmOverloadedException rejected(long start, String reason) {
+        rejectedWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        rejected.increment();
+        return new LlmOverloadedException(provider, reason);
+    }
+
+    private void release(Outcome outcome) {
+        lock.lock();
+        try {
+            int before = currentLimit();
+            // Only grow while the limit is actually in use; an idle provider tells us nothing about its capacity.
+            boolean saturated = inFlight * 2 >= before;
+            inFlight--;
+            if (outcome == Outcome.DROPPED) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (outcome == Outcome.SUCCESS && saturated) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            if (currentLimit() > before) {
+                slotAvailable.signalAll();
+            } else if (inFlight < currentLimit()) {
+                slotAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * One admitted call. Must be released exactly once; further releases are ignored.
+     */
+    public final class Permit {
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {
+        }
+
+        public long elapsedNanos() {
+            return System.nanoTime() - startNanos;
+        }
+
+        public void release(Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimiter.this.release(outcome);
+            }
+        }
+    }
+}
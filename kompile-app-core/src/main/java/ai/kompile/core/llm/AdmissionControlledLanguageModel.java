@@ -0,0 +1,153 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm;
+
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.aop.TargetClassAware;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs every call of the wrapped {@link LanguageModel} through its provider's {@link AdaptiveConcurrencyLimiter}.
+ * A streamed answer holds its slot until the stream ends or is cancelled.
+ */
+public class AdmissionControlledLanguageModel implements LanguageModel, TargetClassAware {
+
+    private static final Set<Integer> CONGESTION_STATUSES = Set.of(429, 503, 529);
+    private static final String TRANSIENT_AI_EXCEPTION = "org.springframework.ai.retry.TransientAiException";
+    private static final Set<String> SPRING_AI_ERRORS = Set.of(TRANSIENT_AI_EXCEPTION,
+            "org.springframework.ai.retry.NonTransientAiException");
+    private static final Pattern LEADING_STATUS = Pattern.compile("\\s*([1-5]\\d\\d)\\b");
+    // Status codes only count next to "status"/"HTTP"/"code", so "retrieved 503 documents" is not an overload.
+    private static final Pattern CONGESTION_MESSAGE = Pattern.compile(
+            "rate.?limit|overloaded|too many requests|\\b(?:status|http|code)\\b(?:/\\d(?:\\.\\d)?)?\\W{0,3}(?:429|503|529)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private final LanguageModel delegate;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public AdmissionControlledLanguageModel(LanguageModel delegate, AdaptiveConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public String generateResponse(String userQuery, List<String> context) {
+        return call(() -> delegate.generateResponse(userQuery, context));
+    }
+
+    @Override
+    public ChatResponse generateResponseWithPotentialToolCalls(String userQuery, List<String> context) {
+        return call(() -> delegate.generateResponseWithPotentialToolCalls(userQuery, context));
+    }
+
+    @Override
+    public Flux<String> streamResponse(String userQuery, List<String> context) {
+        return Flux.defer(() -> {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            return delegate.streamResponse(userQuery, context)
+                    .doOnError(failure::set)
+                    .doFinally(signal -> permit.release(signal == SignalType.ON_COMPLETE
+                            ? AdaptiveConcurrencyLimiter.Outcome.SUCCESS
+                            : failureOutcome(failure.get())));
+        });
+    }
+
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+
+    @Override
+    public Class<?> getTargetClass() {
+        return delegate instanceof TargetClassAware aware ? aware.getTargetClass() : delegate.getClass();
+    }
+
+    private <T> T call(Supplier<T> work) {
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        AdaptiveConcurrencyLimiter.Outcome outcome = AdaptiveConcurrencyLimiter.Outcome.IGNORED;
+        try {
+            T result = work.get();
+            outcome = limiter.exceedsLatencyThreshold(permit.elapsedNanos())
+                    ? AdaptiveConcurrencyLimiter.Outcome.DROPPED
+                    : AdaptiveConcurrencyLimiter.Outcome.SUCCESS;
+            return result;
+        } catch (RuntimeException e) {
+            outcome = failureOutcome(e);
+            throw e;
+        } finally {
+            permit.release(outcome);
+        }
+    }
+
+    private static AdaptiveConcurrencyLimiter.Outcome failureOutcome(Throwable failure) {
+        return failure != null && isCongestion(failure)
+                ? AdaptiveConcurrencyLimiter.Outcome.DROPPED
+                : AdaptiveConcurrencyLimiter.Outcome.IGNORED;
+    }
+
+    /**
+     * Throttling (429), provider overload (503/529) and timeouts anywhere in the cause chain. The HTTP status is
+     * taken from the exception's {@code getStatusCode()} (RestClient/WebClient response exceptions) or, for
+     * Spring AI's Transient/NonTransientAiException, from the {@code "<status> - <body>"} message; the first
+     * status found decides. A TransientAiException without a status (an I/O failure) counts as congestion.
+     */
+    static boolean isCongestion(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            int status = httpStatus(t);
+            if (status < 0 && SPRING_AI_ERRORS.contains(t.getClass().getName())) {
+                status = leadingStatus(t.getMessage());
+                if (status < 0 && t.getClass().getName().equals(TRANSIENT_AI_EXCEPTION)) {
+                    return true;
+                }
+            }
+            if (status >= 0) {
+                return CONGESTION_STATUSES.contains(status);
+            }
+            if (t.getClass().getSimpleName().contains("Timeout")) {
+                return true;
+            }
+            if (t.getMessage() != null && CONGESTION_MESSAGE.matcher(t.getMessage()).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int httpStatus(Throwable t) {
+        try {
+            Object status = t.getClass().getMethod("getStatusCode").invoke(t);
+            // HttpStatusCode implementations print as "<code>[ <reason>]"; some SDKs return the int directly.
+            return status instanceof Integer code ? code : status == null ? -1 : leadingStatus(status.toString());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static int leadingStatus(String text) {
+        Matcher matcher = text == null ? null : LEADING_STATUS.matcher(text);
+        return matcher != null && matcher.lookingAt() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+}
@@ -19,18 +19,38 @@ package ai.kompile.core.llm;
 
 import org.springframework.ai.chat.model.ChatResponse; // Using Spring AI's ChatClient
 import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public interface LanguageModel {
 
     String generateResponse(String userQuery, List<String> context);
 
+    // Model the provider is configured with (e.g. gpt-4o-mini), used for local token counting and context
+    // limits. Null when unknown; prompts are then budgeted with the default limit.
+    default String getModelName() {
+        return null;
+    }
+
     // For tool calling, Spring AI ChatClient handles this more directly
     // The LanguageModel interface might wrap a ChatClient
     ChatResponse generateResponseWithPotentialToolCalls(String userQuery, List<String> context);
 
+    // Streams the answer as text fragments in arrival order (Spring AI ChatClient.stream()).
+    // The default emits the blocking answer as a single fragment, for models that cannot stream.
+    default Flux<String> streamResponse(String userQuery, List<String> context) {
+        return Flux.defer(() -> Flux.just(generateResponse(userQuery, context)));
+    }
+
+    // Non-blocking variant of generateResponse(): runs the provider round trip on the given executor.
+    default CompletableFuture<String> generateResponseAsync(String userQuery, List<String> context, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> generateResponse(userQuery, context), executor);
+    }
+
     // If you want to manage tool definitions manually for MCP listing (though Spring AI MCP server does this for @AiTool)
     // List<McpToolDefinition> getAvailableTools();
 }
\ No newline at end of file
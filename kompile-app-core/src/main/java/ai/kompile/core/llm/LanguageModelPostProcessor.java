@@ -0,0 +1,82 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm;
+
+import ai.kompile.core.llm.config.LlmLimiterProperties;
+import ai.kompile.core.llm.config.LlmTokenProperties;
+import ai.kompile.core.rag.RagStageMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps every {@link LanguageModel} bean (OpenAI, Anthropic, Gemini, ...) with the decorators enabled under
+ * {@code app.llm.*}: local prompt budgeting ({@link TokenBudgetLanguageModel}) inside, and its own
+ * {@link AdaptiveConcurrencyLimiter} outside, so a call only takes a slot once its prompt is known to fit.
+ */
+@Component
+public class LanguageModelPostProcessor implements BeanPostProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(LanguageModelPostProcessor.class);
+
+    private final ObjectProvider<LlmLimiterProperties> propertiesProvider;
+    private final ObjectProvider<LlmTokenProperties> tokenPropertiesProvider;
+    private final ObjectProvider<TokenizerService> tokenizerProvider;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    public LanguageModelPostProcessor(ObjectProvider<LlmLimiterProperties> propertiesProvider,
+                                      ObjectProvider<LlmTokenProperties> tokenPropertiesProvider,
+                                      ObjectProvider<TokenizerService> tokenizerProvider,
+                                      ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.propertiesProvider = propertiesProvider;
+        this.tokenPropertiesProvider = tokenPropertiesProvider;
+        this.tokenizerProvider = tokenizerProvider;
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        // The no-op model never calls a provider, and the router delegates to providers that are wrapped themselves.
+        if (!(bean instanceof LanguageModel model) || bean instanceof NoOpLanguageModelImpl || bean instanceof RoutingLanguageModel) {
+            return bean;
+        }
+        String provider = RagStageMetrics.providerName(bean);
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+
+        LlmTokenProperties tokenProperties = tokenPropertiesProvider.getIfAvailable(LlmTokenProperties::new);
+        if (tokenProperties.isEnabled()) {
+            TokenizerService tokenizer = tokenizerProvider.getIfAvailable(() -> new TokenizerService(tokenProperties));
+            logger.info("Prompt budgeting enabled for language model '{}' (model {}, context window {} tokens).",
+                    provider, model.getModelName(), tokenizer.contextLimit(model.getModelName()));
+            model = new TokenBudgetLanguageModel(model, tokenizer, provider, registry);
+        }
+
+        LlmLimiterProperties properties = propertiesProvider.getIfAvailable(LlmLimiterProperties::new);
+        if (properties.isEnabled()) {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(provider, properties, registry);
+            logger.info("Admission control enabled for language model '{}' (initial limit {}, queue {}, max wait {}).",
+                    provider, properties.getInitialLimit(), properties.getMaxQueueSize(), properties.getMaxQueueWait());
+            model = new AdmissionControlledLanguageModel(model, limiter);
+        }
+        return model;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm;
+
+/**
+ * Thrown instead of calling a language model provider when its concurrency limit is reached and the wait
+ * queue is full or the queue wait ran out. Callers should fail fast or degrade (e.g. answer from retrieval
+ * only) rather than retry immediately.
+ */
+public class LlmOverloadedException extends RuntimeException {
+
+    /**
+     * Answer prefix used when an overloaded provider is reported to clients as an error.
+     */
+    public static final String ERROR_MESSAGE = "Error: The language model is overloaded. Please retry later.";
+
+    private final String provider;
+
+    public LlmOverloadedException(String provider, String reason) {
+        super("Language model '" + provider + "' is overloaded: " + reason);
+        this.provider = provider;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@code kompile.llm.prompt.tokens} counter: prompt (input) tokens per provider, tagged
+ * {@code cache=cached} when the provider served them from its prefix cache, {@code cache=uncached} otherwise,
+ * and {@code cache=unknown} when the provider does not report it.
+ */
+public final class PromptCacheMetrics {
+
+    public static final String COUNTER = "kompile.llm.prompt.tokens";
+
+    private static final Logger logger = LoggerFactory.getLogger(PromptCacheMetrics.class);
+
+    private PromptCacheMetrics() {
+    }
+
+    /**
+     * @param promptTokens all input tokens of the call, cached ones included
+     * @param cachedTokens input tokens read from the provider's cache, or null if not reported
+     */
+    public static void record(String provider, Integer promptTokens, Integer cachedTokens) {
+        record(Metrics.globalRegistry, provider, promptTokens, cachedTokens);
+    }
+
+    public static void record(MeterRegistry registry, String provider, Integer promptTokens, Integer cachedTokens) {
+        if (promptTokens == null || promptTokens <= 0) {
+            return;
+        }
+        if (cachedTokens == null) {
+            counter(registry, provider, "unknown").increment(promptTokens);
+            return;
+        }
+        int cached = Math.min(Math.max(cachedTokens, 0), promptTokens);
+        counter(registry, provider, "cached").increment(cached);
+        counter(registry, provider, "uncached").increment(promptTokens - cached);
+        logger.debug("{} prompt: {} of {} input token(s) served from the provider cache.", provider, cached, promptTokens);
+    }
+
+    private static Counter counter(MeterRegistry registry, String provider, String cache) {
+        return Counter.builder(COUNTER)
+                .description("Prompt tokens sent to the language model, by provider cache status")
+                .tag("provider", provider)
+                .tag("cache", cache)
+                .register(registry);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm;
+
+import org.springframework.ai.chat.messages.SystemMessage;
+
+import java.util.List;
+
+/**
+ * System prompt layout shared by the language model implementations, ordered for provider-side prefix
+ * caching: the static instructions come first and stay byte-identical between calls, the retrieved context
+ * follows, and the user query is sent last as its own message. Providers put tool definitions ahead of the
+ * system prompt, so those are part of the cached prefix as well.
+ * <p>
+ * OpenAI caches such prefixes automatically; for Anthropic the instructions and the context are marked as
+ * {@code cache_control} breakpoints (see {@link #contextStart(String)}).
+ */
+public final class PromptLayout {
+
+    public static final String CONTEXT_HEADER = "Context:\n";
+
+    public static final String CONTEXT_SEPARATOR = "\n---\n";
+
+    private PromptLayout() {
+    }
+
+    /**
+     * Instructions followed by the context block. Built by concatenation rather than a prompt template,
+     * so braces in retrieved text are passed through as is.
+     */
+    public static SystemMessage systemMessage(String instructions, List<String> context) {
+        String contextText = context == null ? "" : String.join(CONTEXT_SEPARATOR, context);
+        return new SystemMessage(instructions.strip() + "\n" + CONTEXT_HEADER + contextText);
+    }
+
+    /**
+     * Offset at which the per-request context block of a system prompt built by
+     * {@link #systemMessage(String, List)} starts, or -1 if the text has no context block.
+     */
+    public static int contextStart(String systemText) {
+        int index = systemText.indexOf("\n" + CONTEXT_HEADER);
+        return index < 0 ? -1 : index + 1;
+    }
+}
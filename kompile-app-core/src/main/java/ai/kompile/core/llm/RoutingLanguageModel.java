@@ -0,0 +1,372 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm;
+
+import ai.kompile.core.llm.config.LlmRoutingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatResponse;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Routes each query to the fastest healthy provider out of several {@link LanguageModel}s. Every provider's
+ * latency and error rate are tracked as exponentially weighted moving averages; providers at or above
+ * {@code app.llm.routing.max-error-rate} are skipped until {@code unhealthy-retry-after} has passed since their
+ * last failure. A failed call falls over to the next provider.
+ * <p>
+ * With hedging enabled, a plain (non-tool, non-streamed) query that the chosen provider has not answered
+ * within its p95 latency is also sent to the next-best provider. The first answer wins and the other call is
+ * cancelled; its elapsed time still counts as a latency sample, so a provider that keeps losing moves down
+ * the ranking. Cancellation interrupts the losing thread, but whether the HTTP request is aborted depends
+ * on the provider's client.
+ */
+public class RoutingLanguageModel implements LanguageModel, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutingLanguageModel.class);
+
+    private final List<Provider> providers;
+    private final LlmRoutingProperties properties;
+    private final ExecutorService executor;
+    private final MeterRegistry registry;
+    private final Counter hedges;
+    private final Counter hedgeWins;
+
+    public RoutingLanguageModel(Map<String, LanguageModel> languageModels, LlmRoutingProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+        this.providers = selectProviders(languageModels, properties);
+        if (providers.isEmpty()) {
+            throw new IllegalStateException("app.llm.routing.enabled=true but no LanguageModel beans match app.llm.routing.providers "
+                    + properties.getProviders() + " (available: " + languageModels.keySet() + ").");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "llm-route-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.hedges = Counter.builder("kompile.llm.routing.hedges")
+                .description("Queries also sent to a second provider because the first was slow")
+                .register(registry);
+        this.hedgeWins = Counter.builder("kompile.llm.routing.hedge.wins")
+                .description("Hedged queries answered first by the second provider")
+                .register(registry);
+        logger.info("Routing language model queries between {} (hedging {}).",
+                providers.stream().map(p -> p.name).toList(), properties.getHedging().isEnabled() ? "enabled" : "disabled");
+    }
+
+    private List<Provider> selectProviders(Map<String, LanguageModel> languageModels, LlmRoutingProperties properties) {
+        Map<String, LanguageModel> candidates = new LinkedHashMap<>();
+        languageModels.forEach((name, model) -> {
+            if (!(model instanceof RoutingLanguageModel) && !(model instanceof NoOpLanguageModelImpl)) {
+                candidates.put(name, model);
+            }
+        });
+        List<String> names = properties.getProviders().isEmpty()
+                ? new ArrayList<>(candidates.keySet())
+                : properties.getProviders().stream().filter(candidates::containsKey).toList();
+        List<Provider> selected = new ArrayList<>();
+        for (String name : names) {
+            selected.add(new Provider(name, candidates.get(name), new ProviderStats(properties.getEwmaAlpha(), properties.getLatencyWindow())));
+        }
+        return List.copyOf(selected);
+    }
+
+    @Override
+    public String generateResponse(String userQuery, List<String> context) {
+        return route(model -> model.generateResponse(userQuery, context),
+                answer -> answer == null || answer.startsWith("Error:"),
+                properties.getHedging().isEnabled());
+    }
+
+    @Override
+    public ChatResponse generateResponseWithPotentialToolCalls(String userQuery, List<String> context) {
+        // Tools may have side effects, so the same turn is never run on two providers at once.
+        return route(model -> model.generateResponseWithPotentialToolCalls(userQuery, context), response -> response == null, false);
+    }
+
+    @Override
+    public Flux<String> streamResponse(String userQuery, List<String> context) {
+        return Flux.defer(() -> stream(ranked(), 0, userQuery, context));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Provider names, best first, as the next query would see them.
+     */
+    public List<String> ranking() {
+        return ranked().stream().map(p -> p.name).toList();
+    }
+
+    /**
+     * Falls over to the next provider only if the stream fails before its first fragment; after that the
+     * client has already seen part of the answer.
+     */
+    private Flux<String> stream(List<Provider> ranked, int index, String userQuery, List<String> context) {
+        Provider provider = ranked.get(index);
+        AtomicBoolean emitted = new AtomicBoolean();
+        return provider.model.streamResponse(userQuery, context)
+                .doOnNext(fragment -> emitted.set(true))
+                .doOnComplete(provider.stats::recordSuccess)
+                .onErrorResume(e -> {
+                    provider.stats.recordFailure();
+                    if (emitted.get() || index + 1 >= ranked.size()) {
+                        return Flux.error(e);
+                    }
+                    logger.warn("Provider '{}' failed to stream ({}); falling over to '{}'.", provider.name, e.getMessage(), ranked.get(index + 1).name);
+                    return stream(ranked, index + 1, userQuery, context);
+                });
+    }
+
+    private record Attempt<T>(Provider provider, T value, RuntimeException error, boolean failed) {
+    }
+
+    /**
+     * A call in flight. Whoever settles it first, the call itself or the cancellation of a loser, updates the
+     * provider's statistics.
+     */
+    private record Running(Future<?> future, long startNanos, AtomicBoolean settled) {
+    }
+
+    private <T> T route(Function<LanguageModel, T> call, Predicate<T> isFailure, boolean hedge) {
+        List<Provider> ranked = ranked();
+        BlockingQueue<Attempt<T>> completed = new LinkedBlockingQueue<>();
+        Map<Provider, Running> running = new LinkedHashMap<>();
+        // Without hedging (or a second provider) the loop only waits for answers and falls over on failure.
+        boolean awaitingHedgeDelay = hedge && ranked.size() >= 2;
+        // Set only when a hedge request is actually sent, so plain failover wins are not counted as hedge wins.
+        boolean hedgeLaunched = false;
+        // The provider the hedge delay applies to: the first one, or the one a failover moved on to.
+        Provider primary = ranked.get(0);
+        int next = 0;
+        Attempt<T> last = null;
+
+        launch(ranked.get(next++), call, isFailure, completed, running);
+        try {
+            while (!running.isEmpty()) {
+                Attempt<T> attempt;
+                if (awaitingHedgeDelay) {
+                    attempt = completed.poll(hedgeDelayNanos(primary), TimeUnit.NANOSECONDS);
+                    if (attempt == null) {
+                        awaitingHedgeDelay = false;
+                        if (next < ranked.size()) {
+                            hedgeLaunched = true;
+                            hedges.increment();
+                            logger.info("Provider '{}' has not answered within the hedge delay; also asking '{}'.",
+                                    primary.name, ranked.get(next).name);
+                            launch(ranked.get(next++), call, isFailure, completed, running);
+                        }
+                        continue;
+                    }
+                } else {
+                    attempt = completed.take();
+                }
+                running.remove(attempt.provider());
+                if (!attempt.failed()) {
+                    cancelLosers(running);
+                    if (hedgeLaunched && attempt.provider() != primary) {
+                        hedgeWins.increment();
+                    }
+                    return attempt.value();
+                }
+                last = attempt;
+                if (running.isEmpty() && next < ranked.size()) {
+                    logger.warn("Provider '{}' failed ({}); falling over to '{}'.", attempt.provider().name,
+                            attempt.error() != null ? attempt.error().getMessage() : "error answer", ranked.get(next).name);
+                    // The hedge delay now runs from this launch and uses the new primary's latency; it only
+                    // matters if a provider is left to hedge with.
+                    primary = ranked.get(next);
+                    awaitingHedgeDelay = hedge && !hedgeLaunched && next + 1 < ranked.size();
+                    launch(ranked.get(next++), call, isFailure, completed, running);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelLosers(running);
+            throw new IllegalStateException("Interrupted while waiting for a language model answer.", e);
+        }
+        // Every provider failed: surface the last failure the way a single provider would have.
+        if (last.error() != null) {
+            throw last.error();
+        }
+        return last.value();
+    }
+
+    private <T> void launch(Provider provider, Function<LanguageModel, T> call, Predicate<T> isFailure,
+                            BlockingQueue<Attempt<T>> completed, Map<Provider, Running> running) {
+        long start = System.nanoTime();
+        AtomicBoolean settled = new AtomicBoolean();
+        Future<?> future = executor.submit(() -> {
+            Attempt<T> attempt;
+            try {
+                T value = call.apply(provider.model);
+                attempt = new Attempt<>(provider, value, null, isFailure.test(value));
+            } catch (RuntimeException e) {
+                attempt = new Attempt<>(provider, null, e, true);
+            }
+            if (settled.compareAndSet(false, true)) {
+                if (attempt.failed()) {
+                    provider.stats.recordFailure();
+                } else {
+                    provider.stats.recordLatency(System.nanoTime() - start);
+                    provider.stats.recordSuccess();
+                }
+            }
+            completed.add(attempt);
+        });
+        running.put(provider, new Running(future, start, settled));
+    }
+
+    private void cancelLosers(Map<Provider, Running> running) {
+        running.forEach((provider, call) -> {
+            if (call.settled().compareAndSet(false, true)) {
+                // The loser took at least this long; recording it keeps a slow provider from staying first.
+                provider.stats.recordLatency(System.nanoTime() - call.startNanos());
+            }
+            call.future().cancel(true);
+        });
+    }
+
+    private long hedgeDelayNanos(Provider primary) {
+        LlmRoutingProperties.Hedging hedging = properties.getHedging();
+        if (primary.stats.samples() < hedging.getMinSamples()) {
+            return hedging.getInitialDelay().toNanos();
+        }
+        return Math.max(hedging.getMinDelay().toNanos(), primary.stats.percentileNanos(hedging.getPercentile()));
+    }
+
+    /**
+     * Healthy providers by latency average (untried ones first, in configured order), then unhealthy ones by
+     * error rate as a last resort.
+     */
+    private List<Provider> ranked() {
+        long now = System.nanoTime();
+        long retryAfter = properties.getUnhealthyRetryAfter().toNanos();
+        List<Provider> healthy = new ArrayList<>();
+        List<Provider> unhealthy = new ArrayList<>();
+        for (Provider provider : providers) {
+            (provider.stats.isHealthy(properties.getMaxErrorRate(), retryAfter, now) ? healthy : unhealthy).add(provider);
+        }
+        healthy.sort(Comparator.comparingDouble(p -> p.stats.latencyEwmaNanos()));
+        unhealthy.sort(Comparator.comparingDouble(p -> p.stats.errorRate()));
+        healthy.addAll(unhealthy);
+        return healthy;
+    }
+
+    private final class Provider {
+        private final String name;
+        private final LanguageModel model;
+        private final ProviderStats stats;
+
+        private Provider(String name, LanguageModel model, ProviderStats stats) {
+            this.name = name;
+            this.model = model;
+            this.stats = stats;
+            Gauge.builder("kompile.llm.routing.latency", stats, s -> s.latencyEwmaNanos() / 1_000_000.0)
+                    .description("Moving average of the provider's answer latency in milliseconds")
+                    .tag("provider", name).register(registry);
+            Gauge.builder("kompile.llm.routing.error.rate", stats, ProviderStats::errorRate)
+                    .description("Moving average of the provider's failure rate")
+                    .tag("provider", name).register(registry);
+        }
+    }
+
+    /**
+     * Latency and error-rate moving averages plus a window of recent latencies for percentiles.
+     */
+    static final class ProviderStats {
+        private final double alpha;
+        private final long[] window;
+        private int samples;
+        private double latencyEwma;
+        private double errorEwma;
+        private long lastFailureNanos;
+        private boolean everFailed;
+
+        ProviderStats(double alpha, int windowSize) {
+            this.alpha = Math.min(Math.max(alpha, 0.01), 1.0);
+            this.window = new long[Math.max(1, windowSize)];
+        }
+
+        synchronized void recordLatency(long nanos) {
+            latencyEwma = samples == 0 ? nanos : alpha * nanos + (1 - alpha) * latencyEwma;
+            window[samples % window.length] = nanos;
+            samples++;
+        }
+
+        synchronized void recordSuccess() {
+            errorEwma = (1 - alpha) * errorEwma;
+        }
+
+        synchronized void recordFailure() {
+            errorEwma = alpha + (1 - alpha) * errorEwma;
+            lastFailureNanos = System.nanoTime();
+            everFailed = true;
+        }
+
+        synchronized boolean isHealthy(double maxErrorRate, long retryAfterNanos, long now) {
+            return errorEwma < maxErrorRate || !everFailed || now - lastFailureNanos >= retryAfterNanos;
+        }
+
+        synchronized int samples() {
+            return samples;
+        }
+
+        synchronized double latencyEwmaNanos() {
+            return latencyEwma;
+        }
+
+        synchronized double errorRate() {
+            return errorEwma;
+        }
+
+        synchronized long percentileNanos(double percentile) {
+            int filled = Math.min(samples, window.length);
+            if (filled == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(window, filled);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(Math.min(Math.max(percentile, 0.0), 1.0) * filled) - 1;
+            return sorted[Math.max(0, index)];
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.aop.TargetClassAware;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Counts every prompt of the wrapped {@link LanguageModel} locally with {@link TokenizerService} and trims its
+ * context to the model's window before dispatch, so an oversized prompt never costs a round trip. Publishes
+ * {@code kompile.llm.prompt.estimated.tokens} (per call) and {@code kompile.llm.prompt.trimmed.tokens}.
+ */
+public class TokenBudgetLanguageModel implements LanguageModel, TargetClassAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenBudgetLanguageModel.class);
+
+    private final LanguageModel delegate;
+    private final TokenizerService tokenizer;
+    private final String provider;
+    private final DistributionSummary promptTokens;
+    private final Counter trimmedTokens;
+
+    public TokenBudgetLanguageModel(LanguageModel delegate, TokenizerService tokenizer, String provider, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.tokenizer = tokenizer;
+        this.provider = provider;
+        this.promptTokens = DistributionSummary.builder("kompile.llm.prompt.estimated.tokens")
+                .description("Locally counted prompt tokens per language model call, after trimming")
+                .tag("provider", provider)
+                .register(registry);
+        this.trimmedTokens = Counter.builder("kompile.llm.prompt.trimmed.tokens")
+                .description("Context tokens cut to fit the model's context window")
+                .tag("provider", provider)
+                .register(registry);
+    }
+
+    @Override
+    public String generateResponse(String userQuery, List<String> context) {
+        return delegate.generateResponse(userQuery, fit(userQuery, context));
+    }
+
+    @Override
+    public ChatResponse generateResponseWithPotentialToolCalls(String userQuery, List<String> context) {
+        return delegate.generateResponseWithPotentialToolCalls(userQuery, fit(userQuery, context));
+    }
+
+    @Override
+    public Flux<String> streamResponse(String userQuery, List<String> context) {
+        return Flux.defer(() -> delegate.streamResponse(userQuery, fit(userQuery, context)));
+    }
+
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+
+    @Override
+    public Class<?> getTargetClass() {
+        return delegate instanceof TargetClassAware aware ? aware.getTargetClass() : delegate.getClass();
+    }
+
+    private List<String> fit(String userQuery, List<String> context) {
+        String model = delegate.getModelName();
+        TokenizerService.FittedPrompt fitted = tokenizer.fit(model, userQuery, context);
+        promptTokens.record(fitted.promptTokens());
+        if (fitted.trimmedTokens() > 0) {
+            trimmedTokens.increment(fitted.trimmedTokens());
+            logger.warn("Prompt for {} ({}) exceeded its budget of {} tokens: trimmed {} context token(s), dropped {} snippet(s).",
+                    provider, model, fitted.budget(), fitted.trimmedTokens(), fitted.droppedSnippets());
+        }
+        logger.info("Prompt for {} ({}): ~{} token(s) of {} ({}).", provider, model, fitted.promptTokens(),
+                tokenizer.contextLimit(model), tokenizer.isExact(model) ? "exact" : "approximate");
+        return fitted.context();
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm;
+
+import ai.kompile.core.llm.config.LlmTokenProperties;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingType;
+import com.knuddels.jtokkit.api.IntArrayList;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Offline token counting with the tiktoken BPE encodings (jtokkit) and per-model context windows.
+ * <p>
+ * OpenAI models are counted with their own encoding (o200k_base for the gpt-4o / o-series / gpt-4.1
+ * families, cl100k_base for older ones). Claude and Gemini tokenizers are not available offline; their
+ * prompts are counted with cl100k_base and {@code app.llm.tokens.approximation-margin} of the window is
+ * held back to absorb the difference.
+ */
+@Component
+public class TokenizerService {
+
+    // Context windows by model name prefix; the longest matching prefix wins.
+    private static final Map<String, Integer> DEFAULT_CONTEXT_LIMITS = Map.ofEntries(
+            Map.entry("gpt-3.5-turbo", 16_385),
+            Map.entry("gpt-4", 8_192),
+            Map.entry("gpt-4-32k", 32_768),
+            Map.entry("gpt-4-turbo", 128_000),
+            Map.entry("gpt-4o", 128_000),
+            Map.entry("gpt-4.1", 1_047_576),
+            Map.entry("gpt-5", 400_000),
+            Map.entry("o1", 200_000),
+            Map.entry("o3", 200_000),
+            Map.entry("o4", 200_000),
+            Map.entry("claude", 200_000),
+            Map.entry("gemini-1.0", 32_760),
+            Map.entry("gemini-1.5-flash", 1_048_576),
+            Map.entry("gemini-1.5-pro", 2_097_152),
+            Map.entry("gemini-2", 1_048_576));
+
+    // A cut snippet shorter than this is more noise than context and is dropped instead.
+    private static final int MIN_TRUNCATED_TOKENS = 64;
+
+    private static final List<String> O200K_PREFIXES = List.of("gpt-4o", "gpt-4.1", "gpt-5", "o1", "o3", "o4", "chatgpt-4o");
+
+    private final LlmTokenProperties properties;
+    private final EncodingRegistry registry = Encodings.newLazyEncodingRegistry();
+    private final Map<String, Integer> contextLimits;
+
+    public TokenizerService(LlmTokenProperties properties) {
+        this.properties = properties;
+        Map<String, Integer> limits = new LinkedHashMap<>(DEFAULT_CONTEXT_LIMITS);
+        properties.getContextLimits().forEach((prefix, limit) -> limits.put(prefix.toLowerCase(Locale.ROOT), limit));
+        this.contextLimits = Collections.unmodifiableMap(limits);
+    }
+
+    /**
+     * The prompt trimmed to fit, plus the accounting for logs and metrics.
+     *
+     * @param promptTokens estimated tokens of query, context and reserved overhead after trimming
+     */
+    public record FittedPrompt(List<String> context, int promptTokens, int budget, int trimmedTokens, int droppedSnippets) {
+    }
+
+    public Encoding encodingFor(String model) {
+        String name = normalize(model);
+        if (name.isEmpty()) {
+            return registry.getEncoding(EncodingType.CL100K_BASE);
+        }
+        if (O200K_PREFIXES.stream().anyMatch(name::startsWith)) {
+            return registry.getEncoding(EncodingType.O200K_BASE);
+        }
+        Optional<Encoding> exact = registry.getEncodingForModel(name);
+        return exact.orElseGet(() -> registry.getEncoding(EncodingType.CL100K_BASE));
+    }
+
+    /**
+     * Whether counts for this model are exact, i.e. it is an OpenAI model with a known encoding.
+     */
+    public boolean isExact(String model) {
+        String name = normalize(model);
+        return O200K_PREFIXES.stream().anyMatch(name::startsWith) || (!name.isEmpty() && registry.getEncodingForModel(name).isPresent());
+    }
+
+    public int countTokens(String model, String text) {
+        return text == null || text.isEmpty() ? 0 : encodingFor(model).countTokens(text);
+    }
+
+    /**
+     * The longest prefix of {@code text} that fits in {@code maxTokens}, cut at a token boundary.
+     */
+    public String truncate(String model, String text, int maxTokens) {
+        if (text == null || maxTokens <= 0) {
+            return "";
+        }
+        Encoding encoding = encodingFor(model);
+        IntArrayList prefix = encoding.encode(text, maxTokens).getTokens();
+        return encoding.decode(prefix);
+    }
+
+    public int contextLimit(String model) {
+        String name = normalize(model);
+        String bestPrefix = null;
+        for (String prefix : contextLimits.keySet()) {
+            if (name.startsWith(prefix) && (bestPrefix == null || prefix.length() > bestPrefix.length())) {
+                bestPrefix = prefix;
+            }
+        }
+        return bestPrefix != null ? contextLimits.get(bestPrefix) : properties.getDefaultContextLimit();
+    }
+
+    /**
+     * Tokens available for query and context: the context window, less the approximation margin for models
+     * counted with a foreign tokenizer, the reserved answer tokens and the prompt overhead.
+     */
+    public int promptBudget(String model) {
+        double window = contextLimit(model);
+        if (!isExact(model)) {
+            window *= 1.0 - Math.min(Math.max(properties.getApproximationMargin(), 0.0), 0.9);
+        }
+        return Math.max(0, (int) window - properties.getReservedOutputTokens() - properties.getPromptOverheadTokens());
+    }
+
+    /**
+     * Keeps context snippets in order while they fit in the prompt budget next to the query; the snippet that
+     * crosses the budget is cut at a token boundary (if enough room is left) and the rest are dropped.
+     *
+     * @throws IllegalArgumentException if the query alone does not fit
+     */
+    public FittedPrompt fit(String model, String userQuery, List<String> context) {
+        int budget = promptBudget(model);
+        int queryTokens = countTokens(model, userQuery);
+        if (queryTokens > budget) {
+            throw new IllegalArgumentException("The query is " + queryTokens + " tokens long, more than the " + budget
+                    + " tokens available for prompts to model '" + model + "'.");
+        }
+        int used = queryTokens;
+        int trimmed = 0;
+        int dropped = 0;
+        List<String> fitted = new ArrayList<>();
+        if (context != null) {
+            for (String snippet : context) {
+                int tokens = countTokens(model, snippet);
+                int remaining = budget - used;
+                if (tokens <= remaining) {
+                    fitted.add(snippet);
+                    used += tokens;
+                } else if (remaining >= MIN_TRUNCATED_TOKENS) {
+                    fitted.add(truncate(model, snippet, remaining));
+                    used += remaining;
+                    trimmed += tokens - remaining;
+                } else {
+                    trimmed += tokens;
+                    dropped++;
+                }
+            }
+        }
+        return new FittedPrompt(fitted, used + properties.getPromptOverheadTokens(), budget, trimmed, dropped);
+    }
+
+    private static String normalize(String model) {
+        if (model == null) {
+            return "";
+        }
+        String name = model.trim().toLowerCase(Locale.ROOT);
+        // Vertex / Bedrock style ids such as "publishers/google/models/gemini-1.5-pro" or "anthropic.claude-3".
+        int slash = name.lastIndexOf('/');
+        return slash >= 0 ? name.substring(slash + 1) : name;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Admission control for language model calls. Every {@link ai.kompile.core.llm.LanguageModel} bean gets its
+ * own adaptive concurrency limit (additive increase, multiplicative decrease) and a bounded wait queue.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.llm.limiter")
+public class LlmLimiterProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Concurrent calls allowed per provider before any feedback has been seen.
+     */
+    private int initialLimit = 8;
+
+    private int minLimit = 1;
+
+    private int maxLimit = 64;
+
+    /**
+     * Factor applied to the limit when a call is throttled (429), overloaded, times out or exceeds the
+     * latency threshold.
+     */
+    private double backoffRatio = 0.7;
+
+    /**
+     * Calls slower than this count as a congestion signal even when they succeed.
+     */
+    private Duration latencyThreshold = Duration.ofSeconds(30);
+
+    /**
+     * Calls that may wait for a free slot. Further calls are rejected immediately.
+     */
+    private int maxQueueSize = 32;
+
+    /**
+     * Longest a call waits in the queue before it is rejected.
+     */
+    private Duration maxQueueWait = Duration.ofSeconds(2);
+}
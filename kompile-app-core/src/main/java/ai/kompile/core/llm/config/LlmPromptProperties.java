@@ -0,0 +1,37 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prompt layout settings shared by the RAG pipeline and the language model implementations.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.llm.prompt")
+public class LlmPromptProperties {
+
+    /**
+     * Lays prompts out for provider-side prefix caching: retrieved context is ordered by chunk identity instead
+     * of rank, so the same set of snippets always yields the same prompt, and Anthropic requests get
+     * cache_control breakpoints after the instructions and after the context.
+     */
+    private boolean cacheFriendly = false;
+}
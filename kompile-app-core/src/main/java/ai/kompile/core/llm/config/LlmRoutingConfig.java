@@ -0,0 +1,46 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm.config;
+
+import ai.kompile.core.llm.LanguageModel;
+import ai.kompile.core.llm.RoutingLanguageModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.Map;
+
+/**
+ * Registers {@link RoutingLanguageModel} as the primary {@link LanguageModel} when
+ * {@code app.llm.routing.enabled=true}, wrapping every other LanguageModel bean.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.llm.routing.enabled", havingValue = "true")
+public class LlmRoutingConfig {
+
+    @Bean
+    @Primary
+    public RoutingLanguageModel routingLanguageModel(Map<String, LanguageModel> languageModels,
+                                                     LlmRoutingProperties properties,
+                                                     ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new RoutingLanguageModel(languageModels, properties, meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+}
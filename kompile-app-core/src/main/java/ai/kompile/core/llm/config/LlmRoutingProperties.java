@@ -0,0 +1,95 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for {@link ai.kompile.core.llm.RoutingLanguageModel}, which spreads queries over all configured
+ * language model providers by their observed latency and error rate.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.llm.routing")
+public class LlmRoutingProperties {
+
+    /**
+     * Registers the routing model as the primary LanguageModel. Each provider still needs its own settings
+     * (e.g. spring.ai.openai.api-key, spring.ai.anthropic.api-key).
+     */
+    private boolean enabled = false;
+
+    /**
+     * Bean names of the providers to route between, in order of preference while they have no latency
+     * history (e.g. openAiLanguageModel, anthropicLanguageModel, geminiLanguageModel). Empty uses all.
+     */
+    private List<String> providers = new ArrayList<>();
+
+    /**
+     * Weight of the newest sample in the latency and error-rate moving averages.
+     */
+    private double ewmaAlpha = 0.3;
+
+    /**
+     * Providers whose error-rate average is at or above this are skipped while a healthy one exists.
+     */
+    private double maxErrorRate = 0.5;
+
+    /**
+     * After this long without a new failure an unhealthy provider is tried again.
+     */
+    private Duration unhealthyRetryAfter = Duration.ofSeconds(30);
+
+    /**
+     * Latencies kept per provider for the hedge-delay percentile.
+     */
+    private int latencyWindow = 200;
+
+    private Hedging hedging = new Hedging();
+
+    @Data
+    public static class Hedging {
+        /**
+         * Sends the query to the next-best provider as well when the first has not answered after the hedge
+         * delay, and uses whichever answers first. Never applies to tool-calling or streamed requests.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Latency percentile of the chosen provider used as hedge delay.
+         */
+        private double percentile = 0.95;
+
+        /**
+         * Lower bound for the hedge delay.
+         */
+        private Duration minDelay = Duration.ofMillis(200);
+
+        /**
+         * Hedge delay while the chosen provider has fewer than min-samples latencies recorded.
+         */
+        private Duration initialDelay = Duration.ofSeconds(5);
+
+        private int minSamples = 20;
+    }
+}
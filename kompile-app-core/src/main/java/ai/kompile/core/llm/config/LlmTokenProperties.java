@@ -0,0 +1,66 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Local prompt budgeting for {@link ai.kompile.core.llm.TokenizerService}: prompts are counted offline and
+ * trimmed to the model's context window before they are sent.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.llm.tokens")
+public class LlmTokenProperties {
+
+    /**
+     * Counts and trims every prompt before dispatch.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Context window overrides by model name prefix (longest match wins), e.g.
+     * app.llm.tokens.context-limits.[gpt-4o]=128000. Merged over the built-in table.
+     */
+    private Map<String, Integer> contextLimits = new LinkedHashMap<>();
+
+    /**
+     * Context window assumed for models that match no entry.
+     */
+    private int defaultContextLimit = 8192;
+
+    /**
+     * Tokens kept free for the model's answer.
+     */
+    private int reservedOutputTokens = 1024;
+
+    /**
+     * Tokens reserved for the instructions, message framing and tool definitions around context and query.
+     */
+    private int promptOverheadTokens = 512;
+
+    /**
+     * Fraction of the window held back for models whose tokenizer is not available locally (Claude, Gemini),
+     * whose prompts are counted with cl100k_base as an approximation.
+     */
+    private double approximationMargin = 0.15;
+}
@@ -18,6 +18,7 @@ package ai.kompile.core.loaders;
 
 import org.springframework.ai.document.Document;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Service interface for orchestrating the loading of documents from various
@@ -34,4 +35,18 @@ public interface DocumentLoadingService {
      * Returns an empty list if no sources are configured or no documents are found.
      */
     List<Document> loadAllConfiguredDocuments();
+
+    /**
+     * Streams the documents of all configured sources in batches, in the same order as
+     * {@link #loadAllConfiguredDocuments()}. Sources are loaded as the batches are pulled, so memory use
+     * depends on the batch size rather than on the size of the corpus. Close the stream (try-with-resources)
+     * if it is not consumed to the end, to release any loading threads.
+     * The default loads everything up front and returns it as a single batch.
+     *
+     * @return A stream of non-empty document batches.
+     */
+    default Stream<List<Document>> streamAllConfiguredDocuments() {
+        List<Document> documents = loadAllConfiguredDocuments();
+        return documents == null || documents.isEmpty() ? Stream.empty() : Stream.of(documents);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.rag;
+
+import java.util.Map;
+
+/**
+ * An answer together with the time spent per pipeline stage, in milliseconds and in pipeline order
+ * (e.g. keyword_retrieval, vector_search, context_assembly, llm, total).
+ */
+public record RagAnswer(String answer, Map<String, Long> timingsMs) {
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.rag;
+
+/**
+ * The answer to one query of a batch. {@code index} is the query's position in the submitted batch, since
+ * results are delivered as they complete rather than in submission order.
+ */
+public record RagBatchResult(int index, RagQuery query, RagAnswer answer) {
+}
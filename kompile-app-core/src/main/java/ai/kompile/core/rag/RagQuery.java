@@ -26,4 +26,11 @@ import lombok.AllArgsConstructor;
 public class RagQuery {
     private String query;
     private boolean useToolCalling = false;
+    // Adds a per-stage timing breakdown (milliseconds) to the response.
+    private boolean includeTimings = false;
+
+    public RagQuery(String query, boolean useToolCalling) {
+        this.query = query;
+        this.useToolCalling = useToolCalling;
+    }
 }
\ No newline at end of file
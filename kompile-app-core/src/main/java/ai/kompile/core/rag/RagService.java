@@ -16,6 +16,46 @@
 
 package ai.kompile.core.rag;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 public interface RagService {
     String answerQuery(RagQuery query);
+
+    // Like answerQuery(), plus how long each pipeline stage took. The default reports no stages.
+    default RagAnswer answer(RagQuery query) {
+        return new RagAnswer(answerQuery(query), Map.of());
+    }
+
+    // Non-blocking variant of answer(). The pipeline blocks on retrieval and provider calls, so it runs on the
+    // given executor (e.g. virtual threads) and the caller's thread is released immediately.
+    default CompletableFuture<RagAnswer> answerAsync(RagQuery query, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> answer(query), executor);
+    }
+
+    // Answers many queries with at most `parallelism` in progress at a time, emitting each result as it completes.
+    // The default runs answerAsync() per query; implementations may share retrieval work across the batch.
+    default Flux<RagBatchResult> answerBatch(List<RagQuery> queries, int parallelism, Executor executor) {
+        return Flux.range(0, queries.size())
+                .flatMap(i -> Mono.fromFuture(() -> answerAsync(queries.get(i), executor))
+                        .onErrorResume(e -> Mono.just(new RagAnswer("Error: Failed to answer the query: " + e, Map.of())))
+                        .map(answer -> new RagBatchResult(i, queries.get(i), answer)), Math.max(1, parallelism));
+    }
+
+    // Streams retrieval metadata first, then answer fragments as the language model produces them.
+    // The default wraps answerQuery(), so it delivers the whole answer in one token event.
+    default Flux<RagStreamEvent> streamAnswer(RagQuery query) {
+        return Flux.defer(() -> {
+            String answer = answerQuery(query);
+            if (answer == null || answer.startsWith("Error:")) {
+                return Flux.just(RagStreamEvent.error(answer != null ? answer : "Error: No answer."));
+            }
+            return Flux.just(RagStreamEvent.token(answer), RagStreamEvent.done());
+        });
+    }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.rag;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.aop.framework.AopProxyUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code kompile.rag.stage} timer shared by every stage of the RAG pipeline (retrieval legs, query
+ * embedding, context assembly, LLM and tool calls). All series carry the same tags, {@code stage},
+ * {@code provider} (the component that served the stage) and {@code outcome}, and publish a percentile
+ * histogram so p99 can be computed across instances.
+ */
+public final class RagStageMetrics {
+
+    public static final String TIMER = "kompile.rag.stage";
+
+    public static final String SUCCESS = "success";
+    public static final String EMPTY = "empty";
+    public static final String ERROR = "error";
+    public static final String TIMEOUT = "timeout";
+    public static final String REJECTED = "rejected";
+
+    private RagStageMetrics() {
+    }
+
+    public static void record(MeterRegistry registry, String stage, String provider, String outcome, long nanos) {
+        Timer.builder(TIMER)
+                .description("Latency of one RAG pipeline stage")
+                .tag("stage", stage)
+                .tag("provider", provider)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Simple class name of the component behind {@code component}, looking through Spring and
+     * post-processor proxies.
+     */
+    public static String providerName(Object component) {
+        return component == null ? "none" : AopProxyUtils.ultimateTargetClass(component).getSimpleName();
+    }
+}
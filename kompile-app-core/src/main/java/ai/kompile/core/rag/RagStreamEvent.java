@@ -0,0 +1,52 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.rag;
+
+import java.util.Map;
+
+/**
+ * One event of a streamed RAG answer. {@code event} names the kind of payload:
+ * <ul>
+ *     <li>{@code metadata}: retrieval details (a map), sent once before any token</li>
+ *     <li>{@code token}: the next fragment of the answer text</li>
+ *     <li>{@code done}: the answer is complete</li>
+ *     <li>{@code error}: the answer failed; no further events follow</li>
+ * </ul>
+ */
+public record RagStreamEvent(String event, Object data) {
+
+    public static final String METADATA = "metadata";
+    public static final String TOKEN = "token";
+    public static final String DONE = "done";
+    public static final String ERROR = "error";
+
+    public static RagStreamEvent metadata(Map<String, Object> metadata) {
+        return new RagStreamEvent(METADATA, metadata);
+    }
+
+    public static RagStreamEvent token(String text) {
+        return new RagStreamEvent(TOKEN, text);
+    }
+
+    public static RagStreamEvent done() {
+        return new RagStreamEvent(DONE, "");
+    }
+
+    public static RagStreamEvent error(String message) {
+        return new RagStreamEvent(ERROR, message);
+    }
+}
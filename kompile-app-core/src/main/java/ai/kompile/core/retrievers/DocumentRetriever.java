@@ -16,12 +16,38 @@
 
 package ai.kompile.core.retrievers;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 public interface DocumentRetriever {
     // Option 1: Return simple strings
     List<String> retrieve(String query, int maxResults);
 
-    // Option 2: Return richer DTOs (uncomment if you prefer this)
-    // List<RetrievedDoc> retrieve(String query, int maxResults);
+    // Option 2: Return richer DTOs, best first. Used by hybrid fusion, which needs ranks, scores and ids.
+    // The default adapts retrieve(): results carry no id and a score of 0, so only their rank is meaningful.
+    default List<RetrievedDoc> retrieveWithScores(String query, int maxResults) {
+        List<String> docs = retrieve(query, maxResults);
+        if (docs == null) {
+            return Collections.emptyList();
+        }
+        return docs.stream()
+                .map(content -> new RetrievedDoc(null, content, 0f, Collections.emptyMap()))
+                .collect(Collectors.toList());
+    }
+
+    // Batch variant of retrieveWithScores(): one result list per query, in query order. The default searches one
+    // query at a time; retrievers with a native batch search (e.g. Anserini) override it.
+    default List<List<RetrievedDoc>> retrieveWithScoresBatch(List<String> queries, int maxResults) {
+        return queries.stream()
+                .map(query -> retrieveWithScores(query, maxResults))
+                .collect(Collectors.toList());
+    }
+
+    // Non-blocking variant of retrieve(): runs the (blocking) search on the given executor.
+    default CompletableFuture<List<String>> retrieveAsync(String query, int maxResults, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> retrieve(query, maxResults), executor);
+    }
 }
\ No newline at end of file
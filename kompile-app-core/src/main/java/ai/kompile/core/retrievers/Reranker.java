@@ -0,0 +1,33 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.retrievers;
+
+import java.util.List;
+
+/**
+ * Scores (query, passage) pairs jointly, e.g. with a cross-encoder. Used to reorder retrieval candidates
+ * before they are sent to the language model. Implementations are optional; without one the fused
+ * retrieval order is used as is.
+ */
+public interface Reranker {
+
+    /**
+     * Returns one relevance score per passage, in the order of {@code passages}. Higher is more relevant;
+     * scores are only comparable within the same query.
+     */
+    float[] score(String query, List<String> passages);
+}
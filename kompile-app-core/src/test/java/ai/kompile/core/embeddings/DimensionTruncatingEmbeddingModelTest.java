@@ -0,0 +1,128 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.embeddings;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks which options reach the provider and that over-long vectors are cut to the target size.
+ */
+class DimensionTruncatingEmbeddingModelTest {
+
+    /**
+     * Provider-specific options with a field the generic options do not have, like OpenAI's {@code user}.
+     */
+    public static class ProviderOptions implements EmbeddingOptions {
+        private String model;
+        private Integer dimensions;
+        private String user;
+
+        @Override
+        public String getModel() {
+            return model;
+        }
+
+        public void setModel(String model) {
+            this.model = model;
+        }
+
+        @Override
+        public Integer getDimensions() {
+            return dimensions;
+        }
+
+        public void setDimensions(Integer dimensions) {
+            this.dimensions = dimensions;
+        }
+
+        public String getUser() {
+            return user;
+        }
+
+        public void setUser(String user) {
+            this.user = user;
+        }
+    }
+
+    /**
+     * Options whose type has no way to carry dimensions.
+     */
+    public record FixedOptions(String getModel) implements EmbeddingOptions {
+        @Override
+        public Integer getDimensions() {
+            return null;
+        }
+    }
+
+    /**
+     * Records the request it receives and answers with a 4-dimensional vector per input.
+     */
+    private static final class RecordingModel implements org.springframework.ai.embedding.EmbeddingModel {
+        private EmbeddingRequest lastRequest;
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            lastRequest = request;
+            return new EmbeddingResponse(List.of(new Embedding(new float[]{3f, 4f, 1f, 1f}, 0)));
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+    }
+
+    @Test
+    void keepsProviderSpecificOptionsWhenAddingDimensions() {
+        RecordingModel delegate = new RecordingModel();
+        DimensionTruncatingEmbeddingModel model = new DimensionTruncatingEmbeddingModel(delegate, 2, true);
+        ProviderOptions options = new ProviderOptions();
+        options.setModel("text-embedding-3-small");
+        options.setUser("tenant-7");
+
+        EmbeddingResponse response = model.call(new EmbeddingRequest(List.of("text"), options));
+
+        assertThat(delegate.lastRequest.getOptions()).isInstanceOf(ProviderOptions.class).isNotSameAs(options);
+        ProviderOptions sent = (ProviderOptions) delegate.lastRequest.getOptions();
+        assertThat(sent.getModel()).isEqualTo("text-embedding-3-small");
+        assertThat(sent.getUser()).isEqualTo("tenant-7");
+        assertThat(sent.getDimensions()).isEqualTo(2);
+        assertThat(options.getDimensions()).isNull();
+        assertThat(response.getResults().get(0).getOutput()).containsExactly(0.6f, 0.8f);
+    }
+
+    @Test
+    void truncatesLocallyWhenTheOptionsCannotCarryDimensions() {
+        RecordingModel delegate = new RecordingModel();
+        DimensionTruncatingEmbeddingModel model = new DimensionTruncatingEmbeddingModel(delegate, 2, true);
+        FixedOptions options = new FixedOptions("local-model");
+
+        EmbeddingResponse response = model.call(new EmbeddingRequest(List.of("text"), options));
+
+        assertThat(delegate.lastRequest.getOptions()).isSameAs(options);
+        assertThat(response.getResults().get(0).getOutput()).containsExactly(0.6f, 0.8f);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm;
+
+import ai.kompile.core.llm.config.LlmLimiterProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Limit adaptation and admission of {@link AdaptiveConcurrencyLimiter}, driven from the test thread.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int minLimit, int maxQueueSize, Duration maxQueueWait) {
+        LlmLimiterProperties properties = new LlmLimiterProperties();
+        properties.setInitialLimit(initialLimit);
+        properties.setMinLimit(minLimit);
+        properties.setMaxLimit(64);
+        properties.setBackoffRatio(0.5);
+        properties.setMaxQueueSize(maxQueueSize);
+        properties.setMaxQueueWait(maxQueueWait);
+        return new AdaptiveConcurrencyLimiter("stub", properties, registry);
+    }
+
+    @Test
+    void growsOnlyWhileTheLimitIsInUse() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 0, Duration.ZERO);
+
+        // One call in flight out of four: successes say nothing about capacity.
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire().release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(4.0);
+
+        // Half the limit in use counts as saturated; each success adds 1/limit.
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire();
+        AdaptiveConcurrencyLimiter.Permit second = limiter.acquire();
+        second.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+        assertThat(limiter.getLimit()).isEqualTo(4.25);
+        first.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+        assertThat(limiter.getLimit()).isEqualTo(4.25);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void droppedCallsShrinkTheLimitDownToTheFloor() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 3, 0, Duration.ZERO);
+
+        limiter.acquire().release(AdaptiveConcurrencyLimiter.Outcome.DROPPED);
+        assertThat(limiter.getLimit()).isEqualTo(4.0);
+        limiter.acquire().release(AdaptiveConcurrencyLimiter.Outcome.DROPPED);
+        assertThat(limiter.getLimit()).isEqualTo(3.0);
+        limiter.acquire().release(AdaptiveConcurrencyLimiter.Outcome.DROPPED);
+        assertThat(limiter.getLimit()).isEqualTo(3.0);
+
+        limiter.acquire().release(AdaptiveConcurrencyLimiter.Outcome.IGNORED);
+        assertThat(limiter.getLimit()).isEqualTo(3.0);
+    }
+
+    @Test
+    void releasingAPermitTwiceCountsOnce() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 1, 0, Duration.ZERO);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+
+        permit.release(AdaptiveConcurrencyLimiter.Outcome.DROPPED);
+        permit.release(AdaptiveConcurrencyLimiter.Outcome.DROPPED);
+
+        assertThat(limiter.getLimit()).isEqualTo(4.0);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFull() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 0, Duration.ofSeconds(5));
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+
+        assertThatThrownBy(limiter::acquire)
+                .isInstanceOf(LlmOverloadedException.class)
+                .hasMessageContaining("queue is full");
+        assertThat(registry.counter("kompile.llm.limiter.rejected", "provider", "stub").count()).isEqualTo(1.0);
+
+        held.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+        limiter.acquire().release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+    }
+
+    @Test
+    void rejectsWhenNoSlotFreesUpWithinTheQueueWait() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 4, Duration.ofMillis(50));
+        limiter.acquire();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(limiter::acquire)
+                .isInstanceOf(LlmOverloadedException.class)
+                .hasMessageContaining("no slot within 50 ms");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+        assertThat(limiter.getQueued()).isZero();
+    }
+
+    @Test
+    void admitsWaitingCallersInArrivalOrder() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 8, Duration.ofSeconds(10));
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+        List<String> admitted = new CopyOnWriteArrayList<>();
+        List<Thread> waiters = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            String name = "waiter-" + i;
+            Thread waiter = new Thread(() -> {
+                AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+                admitted.add(name);
+                permit.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED);
+            }, name);
+            waiter.start();
+            waiters.add(waiter);
+            // Wait until this caller is queued before starting the next, so the arrival order is known.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (limiter.getQueued() < i + 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(limiter.getQueued()).isEqualTo(i + 1);
+        }
+
+        held.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED);
+        for (Thread waiter : waiters) {
+            waiter.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        assertThat(admitted).containsExactly("waiter-0", "waiter-1", "waiter-2", "waiter-3");
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.SocketTimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Which provider failures shrink the concurrency limit.
+ */
+class AdmissionControlledLanguageModelTest {
+
+    @Test
+    void throttlingAndOverloadStatusesAreCongestion() {
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", null, null, null))).isTrue();
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", null, null, null))).isTrue();
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                HttpServerErrorException.create(HttpStatusCode.valueOf(529), "Overloaded", null, null, null))).isTrue();
+    }
+
+    @Test
+    void otherStatusesAreNotCongestionWhateverTheMessageSays() {
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                HttpServerErrorException.create(HttpStatus.INTERNAL_SERVER_ERROR, "request 503 failed", null, null, null))).isFalse();
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "max_tokens 4290 too large", null, null, null))).isFalse();
+    }
+
+    @Test
+    void springAiErrorsAreJudgedByTheirLeadingStatus() {
+        // RetryUtils reports 4xx as NonTransientAiException, 429 included.
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                new NonTransientAiException("429 TOO_MANY_REQUESTS - {\"error\":\"rate_limit_exceeded\"}"))).isTrue();
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                new NonTransientAiException("400 BAD_REQUEST - {\"error\":\"context length 1503 tokens over\"}"))).isFalse();
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                new TransientAiException("503 SERVICE_UNAVAILABLE - upstream busy"))).isTrue();
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                new TransientAiException("500 INTERNAL_SERVER_ERROR - oops"))).isFalse();
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                new TransientAiException("Connection reset"))).isTrue();
+    }
+
+    @Test
+    void numbersInUnrelatedMessagesAreNotCongestion() {
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                new IllegalStateException("Retrieved 503 documents in 429 ms"))).isFalse();
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                new IllegalStateException("Upstream returned status 503"))).isTrue();
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                new IllegalStateException("Anthropic API error: overloaded_error"))).isTrue();
+    }
+
+    @Test
+    void timeoutsAnywhereInTheCauseChainAreCongestion() {
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out")))).isTrue();
+        assertThat(AdmissionControlledLanguageModel.isCongestion(
+                new RuntimeException("wrapped", new IllegalArgumentException("bad prompt")))).isFalse();
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.core.llm;
+
+import ai.kompile.core.llm.config.LlmRoutingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Routes between local stub providers with fixed latencies and failure behaviour.
+ */
+class RoutingLanguageModelTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private RoutingLanguageModel router;
+
+    /**
+     * Answers with its own name after a fixed delay, or fails while {@code failing} is set.
+     */
+    private static final class StubProvider implements LanguageModel {
+        private final String name;
+        private final long delayMillis;
+        private volatile boolean failing;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        private StubProvider(String name, long delayMillis) {
+            this.name = name;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public String generateResponse(String userQuery, List<String> context) {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new IllegalStateException("cancelled");
+            }
+            if (failing) {
+                throw new IllegalStateException("HTTP 500 from " + name);
+            }
+            return name;
+        }
+
+        @Override
+        public ChatResponse generateResponseWithPotentialToolCalls(String userQuery, List<String> context) {
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(generateResponse(userQuery, context)))));
+        }
+    }
+
+    @AfterEach
+    void closeRouter() {
+        if (router != null) {
+            router.close();
+        }
+    }
+
+    private RoutingLanguageModel newRouter(LlmRoutingProperties properties, StubProvider... stubs) {
+        Map<String, LanguageModel> models = new LinkedHashMap<>();
+        for (StubProvider stub : stubs) {
+            models.put(stub.name, stub);
+        }
+        models.put("noOp", new NoOpLanguageModelImpl());
+        router = new RoutingLanguageModel(models, properties, registry);
+        return router;
+    }
+
+    @Test
+    void prefersTheFasterProviderOnceBothHaveLatencyHistory() {
+        StubProvider slow = new StubProvider("slow", 80);
+        StubProvider fast = new StubProvider("fast", 5);
+        RoutingLanguageModel model = newRouter(new LlmRoutingProperties(), slow, fast);
+
+        // Untried providers go first in configured order, so each gets one call before latency decides.
+        assertThat(model.generateResponse("q", List.of())).isEqualTo("slow");
+        assertThat(model.generateResponse("q", List.of())).isEqualTo("fast");
+        for (int i = 0; i < 5; i++) {
+            assertThat(model.generateResponse("q", List.of())).isEqualTo("fast");
+        }
+        assertThat(model.ranking()).containsExactly("fast", "slow");
+        assertThat(slow.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void fallsOverAndThenAvoidsAFailingProvider() {
+        StubProvider broken = new StubProvider("broken", 1);
+        broken.failing = true;
+        StubProvider healthy = new StubProvider("healthy", 20);
+        LlmRoutingProperties properties = new LlmRoutingProperties();
+        properties.setMaxErrorRate(0.25);
+        RoutingLanguageModel model = newRouter(properties, broken, healthy);
+
+        assertThat(model.generateResponse("q", List.of())).isEqualTo("healthy");
+        for (int i = 0; i < 5; i++) {
+            assertThat(model.generateResponse("q", List.of())).isEqualTo("healthy");
+        }
+        // One failure pushed the error rate over the threshold, so the broken provider was not tried again.
+        assertThat(broken.calls.get()).isEqualTo(1);
+        assertThat(model.ranking()).containsExactly("healthy", "broken");
+    }
+
+    @Test
+    void failoverWithoutHedgingIsNotCountedAsAHedgeWin() {
+        StubProvider broken = new StubProvider("broken", 1);
+        broken.failing = true;
+        StubProvider healthy = new StubProvider("healthy", 1);
+        RoutingLanguageModel model = newRouter(new LlmRoutingProperties(), broken, healthy);
+
+        assertThat(model.generateResponse("q", List.of())).isEqualTo("healthy");
+        assertThat(registry.counter("kompile.llm.routing.hedges").count()).isZero();
+        assertThat(registry.counter("kompile.llm.routing.hedge.wins").count()).isZero();
+    }
+
+    @Test
+    void rethrowsTheLastFailureWhenEveryProviderFails() {
+        StubProvider first = new StubProvider("first", 1);
+        StubProvider second = new StubProvider("second", 1);
+        first.failing = true;
+        second.failing = true;
+        RoutingLanguageModel model = newRouter(new LlmRoutingProperties(), first, second);
+
+        assertThatThrownBy(() -> model.generateResponse("q", List.of()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("second");
+    }
+
+    @Test
+    void hedgesToTheSecondProviderAndCancelsTheSlowOne() throws InterruptedException {
+        StubProvider stalled = new StubProvider("stalled", 10_000);
+        StubProvider backup = new StubProvider("backup", 10);
+        LlmRoutingProperties properties = new LlmRoutingProperties();
+        properties.getHedging().setEnabled(true);
+        properties.getHedging().setInitialDelay(Duration.ofMillis(100));
+        RoutingLanguageModel model = newRouter(properties, stalled, backup);
+
+        long start = System.nanoTime();
+        assertThat(model.generateResponse("q", List.of())).isEqualTo("backup");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(stalled.interrupted.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(registry.counter("kompile.llm.routing.hedges").count()).isEqualTo(1.0);
+        assertThat(registry.counter("kompile.llm.routing.hedge.wins").count()).isEqualTo(1.0);
+        // The cancelled call counts as at least 100 ms, which ranks the stalled provider behind the backup.
+        assertThat(model.ranking()).containsExactly("backup", "stalled");
+    }
+
+    @Test
+    void aFailoverBecomesThePrimaryTheHedgeDelayAppliesTo() {
+        StubProvider broken = new StubProvider("broken", 1);
+        broken.failing = true;
+        StubProvider second = new StubProvider("second", 200);
+        StubProvider stalled = new StubProvider("stalled", 10_000);
+        LlmRoutingProperties properties = new LlmRoutingProperties();
+        properties.getHedging().setEnabled(true);
+        properties.getHedging().setInitialDelay(Duration.ofMillis(50));
+        RoutingLanguageModel model = newRouter(properties, broken, second, stalled);
+
+        // The first provider fails at once; the second, now the primary, is hedged after its delay and still wins.
+        assertThat(model.generateResponse("q", List.of())).isEqualTo("second");
+        assertThat(registry.counter("kompile.llm.routing.hedges").count()).isEqualTo(1.0);
+        assertThat(registry.counter("kompile.llm.routing.hedge.wins").count()).isZero();
+    }
+
+    @Test
+    void neverHedgesToolCallingRequests() {
+        StubProvider slow = new StubProvider("slow", 300);
+        StubProvider other = new StubProvider("other", 1);
+        LlmRoutingProperties properties = new LlmRoutingProperties();
+        properties.getHedging().setEnabled(true);
+        properties.getHedging().setInitialDelay(Duration.ofMillis(20));
+        RoutingLanguageModel model = newRouter(properties, slow, other);
+
+        ChatResponse response = model.generateResponseWithPotentialToolCalls("q", List.of());
+
+        assertThat(response.getResult().getOutput().getText()).isEqualTo("slow");
+        assertThat(other.calls.get()).isZero();
+    }
+}
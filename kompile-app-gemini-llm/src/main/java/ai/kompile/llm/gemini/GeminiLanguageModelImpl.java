@@ -17,6 +17,8 @@
 package ai.kompile.llm.gemini;
 
 import ai.kompile.core.llm.LanguageModel;
+import ai.kompile.core.llm.PromptCacheMetrics;
+import ai.kompile.core.llm.PromptLayout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
@@ -25,15 +27,14 @@ import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.chat.prompt.SystemPromptTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 // Import metadata classes
 import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
@@ -47,33 +48,30 @@ public class GeminiLanguageModelImpl implements LanguageModel {
 
     private static final Logger logger = LoggerFactory.getLogger(GeminiLanguageModelImpl.class);
     private final ChatClient chatClient;
+    private final String modelName;
 
     @Autowired
-    public GeminiLanguageModelImpl(ChatClient.Builder chatClientBuilder) {
+    public GeminiLanguageModelImpl(ChatClient.Builder chatClientBuilder,
+                                   @Value("${spring.ai.vertex.ai.gemini.chat.options.model:gemini-2.0-flash}") String modelName) {
         // Spring AI auto-configuration with spring-ai-starter-model-vertex-ai-gemini
         // will provide a builder that creates a VertexAiGeminiChatClient.
         this.chatClient = chatClientBuilder.build();
+        this.modelName = modelName;
         logger.info("GeminiLanguageModelImpl initialized with ChatClient: {}", this.chatClient.getClass().getName());
     }
 
+    @Override
+    public String getModelName() {
+        return modelName;
+    }
+
     @Override
     public String generateResponse(String userQuery, List<String> context) {
         logger.debug("Gemini generating simple response for query: {}", userQuery);
-        String systemMessageContent = """
-                You are a helpful AI assistant. Answer the user's query based on the provided context.
-                If the context does not contain the answer, say that you don't know.
-                Context:
-                {context}
-                """;
-        SystemPromptTemplate systemPromptTemplate = new SystemPromptTemplate(systemMessageContent);
-        String contextString = (context == null) ? "" : context.stream().collect(Collectors.joining("\n---\n"));
-
-        Prompt prompt = new Prompt(List.of(
-                systemPromptTemplate.createMessage(Map.of("context", contextString)),
-                new UserMessage(userQuery)
-        ));
+        Prompt prompt = contextPrompt(userQuery, context);
 
         ChatResponse response = chatClient.prompt(prompt).call().chatResponse();
+        recordPromptUsage(response);
 
         if (response != null && response.getResult() != null) {
             AssistantMessage output = response.getResult().getOutput();
@@ -96,18 +94,14 @@ public class GeminiLanguageModelImpl implements LanguageModel {
                 If the context does not contain the answer, consider using a tool.
                 Available tools are for RAG queries (rag_query), listing files (list_files), and reading files (read_file).
                 When responding, if you need to call a tool, use the exact tool names provided.
-                Context:
-                {context}
                 """;
-        SystemPromptTemplate systemPromptTemplate = new SystemPromptTemplate(systemMessageContent);
-        String contextString = (context == null) ? "" : context.stream().collect(Collectors.joining("\n---\n"));
 
         String[] toolNamesArray = {"rag_query", "list_files", "read_file"};
         logger.info("Advertising tools to Gemini: {}", String.join(", ", toolNamesArray));
 
         ChatResponse response = chatClient.prompt()
                 .messages(
-                        systemPromptTemplate.createMessage(Map.of("context", contextString)),
+                        PromptLayout.systemMessage(systemMessageContent, context),
                         new UserMessage(userQuery)
                 )
                 .toolNames(toolNamesArray) // Standard Spring AI method
@@ -115,6 +109,34 @@ public class GeminiLanguageModelImpl implements LanguageModel {
                 .chatResponse();
 
         logger.debug("Gemini LLM response (may include tool call): {}", response);
+        recordPromptUsage(response);
         return response;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Flux<String> streamResponse(String userQuery, List<String> context) {
+        logger.debug("Gemini streaming response for query: {}", userQuery);
+        return chatClient.prompt(contextPrompt(userQuery, context))
+                .stream()
+                .content();
+    }
+
+    // Gemini's implicit prefix cache is not reported through the Spring AI usage, so tokens are counted as unknown.
+    private static void recordPromptUsage(ChatResponse response) {
+        if (response != null && response.getMetadata() != null && response.getMetadata().getUsage() != null) {
+            PromptCacheMetrics.record(GeminiLanguageModelImpl.class.getSimpleName(), response.getMetadata().getUsage().getPromptTokens(), null);
+        }
+    }
+
+    private Prompt contextPrompt(String userQuery, List<String> context) {
+        String systemMessageContent = """
+                You are a helpful AI assistant. Answer the user's query based on the provided context.
+                If the context does not contain the answer, say that you don't know.
+                """;
+
+        return new Prompt(List.of(
+                PromptLayout.systemMessage(systemMessageContent, context),
+                new UserMessage(userQuery)
+        ));
+    }
+}
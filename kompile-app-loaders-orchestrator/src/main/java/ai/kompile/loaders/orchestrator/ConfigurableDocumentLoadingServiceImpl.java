@@ -30,20 +30,43 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 public class ConfigurableDocumentLoadingServiceImpl implements DocumentLoadingService {
     private static final Logger logger = LogManager.getLogger(ConfigurableDocumentLoadingServiceImpl.class);
     private final AppDocumentSourceProperties sourceProperties;
     private final List<DocumentLoader> documentLoaders;
+    private final DocumentChunker chunker;
 
-    public ConfigurableDocumentLoadingServiceImpl(AppDocumentSourceProperties sourceProperties, List<DocumentLoader> documentLoaders) {
+    public ConfigurableDocumentLoadingServiceImpl(AppDocumentSourceProperties sourceProperties, List<DocumentLoader> documentLoaders,
+                                                  DocumentChunker chunker) {
         this.sourceProperties = sourceProperties;
         this.documentLoaders = documentLoaders;
+        this.chunker = chunker;
         if (documentLoaders == null || documentLoaders.isEmpty()) {
             logger.warn("ConfigurableDocumentLoadingServiceImpl initialized with NO document loaders! Document loading will be limited.");
         } else {
@@ -57,6 +80,41 @@ public class ConfigurableDocumentLoadingServiceImpl implements DocumentLoadingSe
     @Override
     public List<Document> loadAllConfiguredDocuments() {
         List<Document> allDocuments = new ArrayList<>();
+        // One batch, with every source submitted at once: only streaming needs to bound how far loading runs ahead.
+        try (Stream<List<Document>> batches = stream(Integer.MAX_VALUE, Integer.MAX_VALUE)) {
+            batches.forEach(allDocuments::addAll);
+        }
+        logger.info("ConfigurableDocumentLoadingServiceImpl: Total documents loaded from all sources: {}", allDocuments.size());
+        return allDocuments;
+    }
+
+    /**
+     * Batches hold at most {@code app.document.loading.batch-size} documents. In parallel mode at most
+     * {@code prefetch-sources} sources are loaded ahead of the consumer, so a slow indexer holds back loading
+     * instead of letting loaded documents pile up.
+     */
+    @Override
+    public Stream<List<Document>> streamAllConfiguredDocuments() {
+        AppDocumentSourceProperties.Loading loading = sourceProperties.getLoading();
+        int prefetch = loading.getPrefetchSources() > 0 ? loading.getPrefetchSources() : fileThreads() + urlThreads();
+        return stream(Math.max(1, loading.getBatchSize()), prefetch);
+    }
+
+    private Stream<List<Document>> stream(int batchSize, int maxSourcesAhead) {
+        List<DocumentSourceDescriptor> sourceDescriptors = collectSourceDescriptors();
+        if (sourceDescriptors.isEmpty()) {
+            logger.warn("No valid source descriptors generated after processing all configurations. No documents will be loaded.");
+            return Stream.empty();
+        }
+        logger.info("Generated {} source descriptors to process.", sourceDescriptors.size());
+
+        // 3. Load documents using appropriate loaders, one source at a time or on the loading pools.
+        SourceBatchIterator batches = new SourceBatchIterator(sourceDescriptors, batchSize, maxSourcesAhead);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(batches::close);
+    }
+
+    private List<DocumentSourceDescriptor> collectSourceDescriptors() {
         List<DocumentSourceDescriptor> sourceDescriptors = new ArrayList<>();
 
         // 1. Gather all source descriptors from app.document.sources
@@ -79,47 +137,243 @@ public class ConfigurableDocumentLoadingServiceImpl implements DocumentLoadingSe
                 logger.info("Configured uploads path '{}' does not yet exist or is not a directory. Will be skipped if not created.", uploadsDirFile.getAbsolutePath());
             }
         }
+        return sourceDescriptors;
+    }
 
-        if (sourceDescriptors.isEmpty()) {
-            logger.warn("No valid source descriptors generated after processing all configurations. No documents will be loaded.");
-            return allDocuments;
+    private SourceResult await(SourceTask task, Duration timeout) {
+        String source = task.descriptor.getPathOrUrl();
+        try {
+            // Sources are awaited in submission order, so everything queued ahead of this one has already been
+            // awaited. If no worker picks it up within the timeout, the workers are stuck in loaders that ignore
+            // interrupts, and waiting longer could block forever.
+            if (!task.started.await(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                task.future.cancel(true);
+                logger.error("Loading source {} did not start within {} because every worker is still busy; skipping it.",
+                        source, timeout);
+                return new SourceResult(task.descriptor, loaderName(task.descriptor), List.of(), 0, Outcome.TIMEOUT);
+            }
+            long startedAgo = System.nanoTime() - task.startNanos;
+            return task.future.get(Math.max(0, timeout.toNanos() - startedAgo), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            task.future.cancel(true);
+            logger.error("Loading source {} exceeded the timeout of {}; skipping it.", source, timeout);
+            return new SourceResult(task.descriptor, loaderName(task.descriptor), List.of(), System.nanoTime() - task.startNanos, Outcome.TIMEOUT);
+        } catch (ExecutionException e) {
+            logger.error("Loading source {} failed: {}", source, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            return new SourceResult(task.descriptor, loaderName(task.descriptor), List.of(), System.nanoTime() - task.startNanos, Outcome.FAILED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.future.cancel(true);
+            throw new IllegalStateException("Interrupted while loading source " + source, e);
         }
-        logger.info("Generated {} source descriptors to process.", sourceDescriptors.size());
+    }
 
-        // 3. Load documents using appropriate loaders
-        for (DocumentSourceDescriptor descriptor : sourceDescriptors) {
-            boolean loadedSuccessfully = false;
-            for (DocumentLoader loader : documentLoaders) {
-                if (loader.supports(descriptor)) {
-                    try {
-                        logger.info("Using loader {} for source: {}", loader.getClass().getSimpleName(), descriptor.getPathOrUrl());
-                        List<Document> docs = loader.load(descriptor);
-                        if (docs != null && !docs.isEmpty()) {
-                            allDocuments.addAll(docs);
-                            logger.info("Loader {} successfully loaded {} document(s) from source: {}",
-                                    loader.getClass().getSimpleName(), docs.size(), descriptor.getPathOrUrl());
-                            loadedSuccessfully = true;
-                        } else {
-                            logger.info("Loader {} processed source {} but returned no documents.",
-                                    loader.getClass().getSimpleName(), descriptor.getPathOrUrl());
+    private String loaderName(DocumentSourceDescriptor descriptor) {
+        return documentLoaders.stream().filter(loader -> loader.supports(descriptor)).findFirst()
+                .map(loader -> loader.getClass().getSimpleName()).orElse(null);
+    }
+
+    /**
+     * Runs the first loader that supports the source. If it throws, the next supporting loader is tried.
+     */
+    private SourceResult loadSource(DocumentSourceDescriptor descriptor) {
+        long startNanos = System.nanoTime();
+        String lastLoader = null;
+        for (DocumentLoader loader : documentLoaders) {
+            if (loader.supports(descriptor)) {
+                lastLoader = loader.getClass().getSimpleName();
+                try {
+                    logger.info("Using loader {} for source: {}", lastLoader, descriptor.getPathOrUrl());
+                    List<Document> docs = loader.load(descriptor);
+                    long elapsed = System.nanoTime() - startNanos;
+                    if (docs != null && !docs.isEmpty()) {
+                        logger.info("Loader {} successfully loaded {} document(s) from source: {}",
+                                lastLoader, docs.size(), descriptor.getPathOrUrl());
+                        // Chunked here, on the worker that loaded the source, so chunking is as parallel as loading.
+                        List<Document> chunks = chunker.chunkAll(docs);
+                        if (chunks.size() != docs.size()) {
+                            logger.info("Split {} document(s) from source {} into {} chunk(s).",
+                                    docs.size(), descriptor.getPathOrUrl(), chunks.size());
                         }
-                        // Even if one loader supports and returns docs, we usually assume it's the definitive one.
-                        // If multiple loaders could support it, the first one in the injected list wins.
-                        break;
-                    } catch (Exception e) {
-                        logger.error("Loader {} failed for source {}: {}",
-                                loader.getClass().getSimpleName(), descriptor.getPathOrUrl(), e.getMessage());
-                        // Continue to try other loaders if this one failed, though supports() should be exclusive ideally
+                        return new SourceResult(descriptor, lastLoader, chunks, System.nanoTime() - startNanos, Outcome.LOADED);
                     }
+                    // The first supporting loader is definitive: a source it loads as empty is not tried with others.
+                    logger.info("Loader {} processed source {} but returned no documents.", lastLoader, descriptor.getPathOrUrl());
+                    return new SourceResult(descriptor, lastLoader, List.of(), elapsed, Outcome.EMPTY);
+                } catch (Exception e) {
+                    logger.error("Loader {} failed for source {}: {}", lastLoader, descriptor.getPathOrUrl(), e.getMessage());
+                    // Continue to try other loaders if this one failed, though supports() should be exclusive ideally
                 }
             }
-            if (!loadedSuccessfully) {
-                logger.warn("No suitable loader successfully processed source: {}", descriptor.getPathOrUrl());
+        }
+        logger.warn("No suitable loader successfully processed source: {}", descriptor.getPathOrUrl());
+        return new SourceResult(descriptor, lastLoader, List.of(), System.nanoTime() - startNanos,
+                lastLoader != null ? Outcome.FAILED : Outcome.UNSUPPORTED);
+    }
+
+    /**
+     * Logs, per loader, how many sources and documents it handled, how much text it produced and its
+     * throughput over the time its sources were being loaded.
+     */
+    private void logThroughput(Map<String, LoaderStats> byLoader, int sources, long wallNanos) {
+        byLoader.forEach((loader, stats) -> {
+            double seconds = Math.max(stats.busyNanos / 1e9, 1e-3);
+            logger.info(String.format(Locale.ROOT,
+                    "Loader %s: %d source(s) %s, %d document(s), %.1f MB text in %.1f s busy (%.1f sources/s, %.1f docs/s, %.2f MB/s).",
+                    loader, stats.sources, stats.outcomes, stats.documents, stats.characters / 1e6, seconds,
+                    stats.sources / seconds, stats.documents / seconds, stats.characters / 1e6 / seconds));
+        });
+        logger.info(String.format(Locale.ROOT, "Loaded %d source(s) in %.1f s wall time.", sources, wallNanos / 1e9));
+    }
+
+    private int fileThreads() {
+        int configured = sourceProperties.getLoading().getFileThreads();
+        return configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+    }
+
+    private int urlThreads() {
+        return Math.max(1, sourceProperties.getLoading().getUrlThreads());
+    }
+
+    private static ExecutorService newLoadingPool(String threadPrefix, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, threadPrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private enum Outcome { LOADED, EMPTY, FAILED, TIMEOUT, UNSUPPORTED }
+
+    private record SourceResult(DocumentSourceDescriptor descriptor, String loader, List<Document> documents,
+                                long elapsedNanos, Outcome outcome) {
+    }
+
+    private static final class SourceTask {
+        private final DocumentSourceDescriptor descriptor;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile long startNanos;
+        private Future<SourceResult> future;
+
+        private SourceTask(DocumentSourceDescriptor descriptor) {
+            this.descriptor = descriptor;
+        }
+    }
+
+    private static final class LoaderStats {
+        private int sources;
+        private int documents;
+        private long characters;
+        private long busyNanos;
+        private final Map<Outcome, Integer> outcomes = new EnumMap<>(Outcome.class);
+
+        private void add(SourceResult result) {
+            sources++;
+            documents += result.documents().size();
+            busyNanos += result.elapsedNanos();
+            outcomes.merge(result.outcome(), 1, Integer::sum);
+            for (Document document : result.documents()) {
+                characters += document.getText() != null ? document.getText().length() : 0;
             }
         }
+    }
 
-        logger.info("ConfigurableDocumentLoadingServiceImpl: Total documents loaded from all sources: {}", allDocuments.size());
-        return allDocuments;
+    /**
+     * Pulls documents source by source, in source order, and cuts them into batches. In parallel mode up to
+     * {@code maxSourcesAhead} sources are submitted to the loading pools ahead of the one being consumed, which
+     * bounds the documents held by sources that finished loading but have not been consumed yet. A source that
+     * runs longer than the source timeout (counted from when a worker picked it up) is interrupted and
+     * contributes no documents.
+     */
+    private final class SourceBatchIterator implements Iterator<List<Document>> {
+        private final Iterator<DocumentSourceDescriptor> sources;
+        private final int batchSize;
+        private final int maxSourcesAhead;
+        private final Deque<SourceTask> inFlight = new ArrayDeque<>();
+        private final Deque<Document> buffered = new ArrayDeque<>();
+        private final Map<String, LoaderStats> statsByLoader = new TreeMap<>();
+        private final long startNanos = System.nanoTime();
+        private final ExecutorService filePool;
+        private final ExecutorService urlPool;
+        private int sourcesDone;
+        private boolean closed;
+
+        private SourceBatchIterator(List<DocumentSourceDescriptor> sourceDescriptors, int batchSize, int maxSourcesAhead) {
+            this.sources = sourceDescriptors.iterator();
+            this.batchSize = batchSize;
+            this.maxSourcesAhead = Math.max(1, maxSourcesAhead);
+            AppDocumentSourceProperties.Loading loading = sourceProperties.getLoading();
+            if (loading.isParallel()) {
+                this.filePool = newLoadingPool("doc-load-file-", fileThreads());
+                this.urlPool = newLoadingPool("doc-load-url-", urlThreads());
+                logger.info("Loading {} sources in parallel ({} file worker(s), {} URL worker(s), timeout {} per source).",
+                        sourceDescriptors.size(), fileThreads(), urlThreads(), loading.getSourceTimeout());
+            } else {
+                this.filePool = null;
+                this.urlPool = null;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (buffered.size() < batchSize && !closed && (sources.hasNext() || !inFlight.isEmpty())) {
+                SourceResult result = nextResult();
+                statsByLoader.computeIfAbsent(result.loader() != null ? result.loader() : "(none)", k -> new LoaderStats()).add(result);
+                sourcesDone++;
+                buffered.addAll(result.documents());
+            }
+            if (buffered.isEmpty()) {
+                close();
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public List<Document> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<Document> batch = new ArrayList<>(Math.min(batchSize, buffered.size()));
+            while (batch.size() < batchSize && !buffered.isEmpty()) {
+                batch.add(buffered.poll());
+            }
+            return batch;
+        }
+
+        private SourceResult nextResult() {
+            if (filePool == null) {
+                return loadSource(sources.next());
+            }
+            while (inFlight.size() < maxSourcesAhead && sources.hasNext()) {
+                DocumentSourceDescriptor descriptor = sources.next();
+                SourceTask task = new SourceTask(descriptor);
+                ExecutorService pool = descriptor.getType() == DocumentSourceDescriptor.SourceType.URL ? urlPool : filePool;
+                task.future = pool.submit(() -> {
+                    task.startNanos = System.nanoTime();
+                    task.started.countDown();
+                    return loadSource(descriptor);
+                });
+                inFlight.add(task);
+            }
+            return await(inFlight.poll(), sourceProperties.getLoading().getSourceTimeout());
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (filePool != null) {
+                filePool.shutdownNow();
+                urlPool.shutdownNow();
+            }
+            if (!inFlight.isEmpty() || sources.hasNext()) {
+                logger.info("Document stream closed before all sources were loaded.");
+            }
+            logThroughput(statsByLoader, sourcesDone, System.nanoTime() - startNanos);
+        }
     }
 
     private void generateDescriptorsFromString(String sourceString, List<DocumentSourceDescriptor> descriptors) {
@@ -135,7 +389,9 @@ public class ConfigurableDocumentLoadingServiceImpl implements DocumentLoadingSe
                 if (sourceFileOrDir.isDirectory()) {
                     logger.info("Expanding directory source for descriptors: {}", sourceFileOrDir.getAbsolutePath());
                     try (Stream<Path> walk = Files.walk(sourceFileOrDir.toPath())) {
+                        // Sorted, so the document order does not depend on the file system's directory order.
                         walk.filter(Files::isRegularFile)
+                                .sorted()
                                 .forEach(filePath -> {
                                     descriptors.add(new DocumentSourceDescriptor(DocumentSourceDescriptor.SourceType.FILE,
                                             filePath.toString(),
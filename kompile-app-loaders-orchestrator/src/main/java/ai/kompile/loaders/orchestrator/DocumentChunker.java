@@ -0,0 +1,306 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.loaders.orchestrator;
+
+import ai.kompile.core.llm.TokenizerService;
+import ai.kompile.loaders.orchestrator.config.AppDocumentSourceProperties;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits loaded documents into chunks of at most {@code app.document.chunking.chunk-tokens} tokens before they
+ * reach the indexers. Chunks are cut between sentences (words only for a sentence that is too long on its own),
+ * start a new chunk at every heading, and repeat up to {@code overlap-tokens} of trailing sentences from the
+ * previous chunk within a section.
+ * <p>
+ * Each chunk keeps the parent's metadata and adds {@code parent_document_id}, {@code chunk_index},
+ * {@code chunk_count}, {@code start_offset}/{@code end_offset} (character offsets into the parent text),
+ * {@code chunk_tokens} and, below a heading, {@code section_heading}. Chunk ids are name-based UUIDs of the
+ * parent id and chunk index. Documents that already fit are passed through unchanged.
+ */
+@Component
+public class DocumentChunker {
+    private static final Logger logger = LogManager.getLogger(DocumentChunker.class);
+    private static final Pattern MARKDOWN_HEADING = Pattern.compile("^#{1,6}\\s+\\S.*");
+    private static final Pattern NUMBERED_HEADING = Pattern.compile("^\\d+(\\.\\d+)*\\.?\\s+\\p{Lu}[^.!?:;]{0,98}");
+    private static final Pattern MARKDOWN_MARKER = Pattern.compile("^#{1,6}\\s+");
+    private static final Pattern WORD = Pattern.compile("\\S+");
+
+    private final AppDocumentSourceProperties sourceProperties;
+    private final TokenizerService tokenizer;
+
+    /**
+     * A span of the parent text that is never split further: a heading, a sentence, or a run of words of an
+     * over-long sentence.
+     */
+    private record Unit(int start, int end, int tokens, boolean heading) {
+    }
+
+    public DocumentChunker(AppDocumentSourceProperties sourceProperties, TokenizerService tokenizer) {
+        this.sourceProperties = sourceProperties;
+        this.tokenizer = tokenizer;
+    }
+
+    public boolean isEnabled() {
+        return sourceProperties.getChunking().isEnabled();
+    }
+
+    /**
+     * Chunks every document of a source, keeping their order. Returns {@code documents} itself when chunking
+     * is disabled.
+     */
+    public List<Document> chunkAll(List<Document> documents) {
+        if (!isEnabled() || documents == null || documents.isEmpty()) {
+            return documents;
+        }
+        List<Document> chunks = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            chunks.addAll(chunk(document));
+        }
+        return chunks;
+    }
+
+    public List<Document> chunk(Document parent) {
+        String text = parent.getText();
+        if (text == null || text.isBlank()) {
+            return List.of(parent);
+        }
+        AppDocumentSourceProperties.Chunking config = sourceProperties.getChunking();
+        int chunkTokens = Math.max(16, config.getChunkTokens());
+        int overlapTokens = Math.max(0, Math.min(config.getOverlapTokens(), chunkTokens / 2));
+
+        List<Unit> units = segment(text, config, chunkTokens);
+        int totalTokens = units.stream().mapToInt(Unit::tokens).sum();
+        if (totalTokens <= chunkTokens) {
+            return List.of(parent);
+        }
+
+        List<List<Unit>> groups = pack(units, chunkTokens, overlapTokens);
+        List<Document> chunks = new ArrayList<>(groups.size());
+        Map<Unit, String> sections = sectionHeadings(text, units);
+        String parentId = parent.getId();
+        for (int i = 0; i < groups.size(); i++) {
+            List<Unit> group = groups.get(i);
+            String heading = sections.get(group.get(0));
+            int start = group.get(0).start();
+            int end = group.get(group.size() - 1).end();
+            String chunkText = text.substring(start, end);
+
+            Map<String, Object> metadata = new HashMap<>(parent.getMetadata());
+            metadata.put("parent_document_id", parentId);
+            metadata.put("chunk_index", i);
+            metadata.put("chunk_count", groups.size());
+            metadata.put("start_offset", start);
+            metadata.put("end_offset", end);
+            metadata.put("chunk_tokens", tokenizer.countTokens(config.getTokenizerModel(), chunkText));
+            if (heading != null) {
+                metadata.put("section_heading", heading);
+            }
+            String id = UUID.nameUUIDFromBytes((parentId + "#" + i).getBytes(StandardCharsets.UTF_8)).toString();
+            chunks.add(new Document(id, chunkText, metadata));
+        }
+        logger.debug("Split document {} ({} token(s)) into {} chunk(s).", parentId, totalTokens, chunks.size());
+        return chunks;
+    }
+
+    /**
+     * Cuts the text into headings (own lines) and the sentences of the paragraphs between them, with offsets
+     * trimmed to the non-blank content.
+     */
+    private List<Unit> segment(String text, AppDocumentSourceProperties.Chunking config, int chunkTokens) {
+        List<Unit> units = new ArrayList<>();
+        int paragraphStart = -1;
+        int lineStart = 0;
+        while (lineStart <= text.length()) {
+            int newline = text.indexOf('\n', lineStart);
+            int lineEnd = newline < 0 ? text.length() : newline;
+            String line = text.substring(lineStart, lineEnd).strip();
+            boolean heading = config.isSplitOnHeadings() && isHeading(line);
+            if (line.isEmpty() || heading) {
+                if (paragraphStart >= 0) {
+                    addSentences(text, paragraphStart, lineStart, config, chunkTokens, units);
+                    paragraphStart = -1;
+                }
+                if (heading) {
+                    addUnit(text, lineStart, lineEnd, true, config, units);
+                }
+            } else if (paragraphStart < 0) {
+                paragraphStart = lineStart;
+            }
+            if (newline < 0) {
+                break;
+            }
+            lineStart = newline + 1;
+        }
+        if (paragraphStart >= 0) {
+            addSentences(text, paragraphStart, text.length(), config, chunkTokens, units);
+        }
+        return units;
+    }
+
+    private void addSentences(String text, int from, int to, AppDocumentSourceProperties.Chunking config,
+                              int chunkTokens, List<Unit> units) {
+        BreakIterator sentences = BreakIterator.getSentenceInstance(Locale.ROOT);
+        sentences.setText(text.substring(from, to));
+        int start = sentences.first();
+        for (int end = sentences.next(); end != BreakIterator.DONE; start = end, end = sentences.next()) {
+            Unit sentence = addUnit(text, from + start, from + end, false, config, units);
+            if (sentence != null && sentence.tokens() > chunkTokens) {
+                units.remove(units.size() - 1);
+                addWordRuns(text, sentence, config, chunkTokens, units);
+            }
+        }
+    }
+
+    /**
+     * Splits a sentence longer than a chunk into runs of whole words. Word counts are summed, which slightly
+     * overestimates the run's tokens, so runs stay within the limit.
+     */
+    private void addWordRuns(String text, Unit sentence, AppDocumentSourceProperties.Chunking config,
+                             int chunkTokens, List<Unit> units) {
+        Matcher words = WORD.matcher(text).region(sentence.start(), sentence.end());
+        int runStart = -1;
+        int runEnd = -1;
+        int runTokens = 0;
+        while (words.find()) {
+            int wordTokens = tokenizer.countTokens(config.getTokenizerModel(), " " + words.group());
+            if (runStart >= 0 && runTokens + wordTokens > chunkTokens) {
+                units.add(new Unit(runStart, runEnd, runTokens, false));
+                runStart = -1;
+                runTokens = 0;
+            }
+            if (runStart < 0) {
+                runStart = words.start();
+            }
+            runEnd = words.end();
+            runTokens += wordTokens;
+        }
+        if (runStart >= 0) {
+            units.add(new Unit(runStart, runEnd, runTokens, false));
+        }
+    }
+
+    private Unit addUnit(String text, int start, int end, boolean heading,
+                         AppDocumentSourceProperties.Chunking config, List<Unit> units) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        Unit unit = new Unit(start, end, tokenizer.countTokens(config.getTokenizerModel(), text.substring(start, end)), heading);
+        units.add(unit);
+        return unit;
+    }
+
+    /**
+     * Greedily fills chunks with units. A heading closes the current chunk if it already has content of its own,
+     * and the next chunk starts without overlap; otherwise the next chunk starts with the trailing units of the
+     * previous one, up to {@code overlapTokens}.
+     */
+    private static List<List<Unit>> pack(List<Unit> units, int chunkTokens, int overlapTokens) {
+        List<List<Unit>> chunks = new ArrayList<>();
+        List<Unit> current = new ArrayList<>();
+        int currentTokens = 0;
+        int freshFrom = 0; // Units before this index are overlap repeated from the previous chunk.
+        boolean freshBody = false;
+
+        for (Unit unit : units) {
+            if (unit.heading()) {
+                if (freshBody) {
+                    chunks.add(current);
+                    current = new ArrayList<>();
+                } else {
+                    current = new ArrayList<>(current.subList(freshFrom, current.size()));
+                }
+                currentTokens = current.stream().mapToInt(Unit::tokens).sum();
+                freshFrom = 0;
+                freshBody = false;
+            } else if (currentTokens + unit.tokens() > chunkTokens && current.size() > freshFrom) {
+                chunks.add(current);
+                current = overlap(current, overlapTokens, chunkTokens - unit.tokens());
+                currentTokens = current.stream().mapToInt(Unit::tokens).sum();
+                freshFrom = current.size();
+                freshBody = false;
+            }
+            current.add(unit);
+            currentTokens += unit.tokens();
+            freshBody |= !unit.heading();
+        }
+        if (current.size() > freshFrom) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    /**
+     * The longest run of trailing non-heading units of {@code chunk} within {@code overlapTokens}, or nothing
+     * if it would not leave room for the next unit.
+     */
+    private static List<Unit> overlap(List<Unit> chunk, int overlapTokens, int room) {
+        int tokens = 0;
+        int from = chunk.size();
+        while (from > 0) {
+            Unit previous = chunk.get(from - 1);
+            if (previous.heading() || tokens + previous.tokens() > overlapTokens) {
+                break;
+            }
+            tokens += previous.tokens();
+            from--;
+        }
+        return tokens > room ? new ArrayList<>() : new ArrayList<>(chunk.subList(from, chunk.size()));
+    }
+
+    /**
+     * The heading each unit falls under (the last heading at or before it), without its markdown marker.
+     */
+    private static Map<Unit, String> sectionHeadings(String text, List<Unit> units) {
+        Map<Unit, String> sections = new IdentityHashMap<>();
+        String heading = null;
+        for (Unit unit : units) {
+            if (unit.heading()) {
+                heading = MARKDOWN_MARKER.matcher(text.substring(unit.start(), unit.end())).replaceFirst("");
+            }
+            if (heading != null) {
+                sections.put(unit, heading);
+            }
+        }
+        return sections;
+    }
+
+    private static boolean isHeading(String line) {
+        return !line.isEmpty()
+                && (MARKDOWN_HEADING.matcher(line).matches() || NUMBERED_HEADING.matcher(line).matches());
+    }
+}
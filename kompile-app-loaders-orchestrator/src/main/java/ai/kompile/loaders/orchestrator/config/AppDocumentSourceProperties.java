@@ -19,6 +19,8 @@ package ai.kompile.loaders.orchestrator.config; // New package
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+
+import java.time.Duration;
 import java.util.List;
 
 @Data
@@ -27,4 +29,36 @@ import java.util.List;
 public class AppDocumentSourceProperties {
     private List<String> sources; // Comma-separated in properties, Spring converts to List
     private String uploadsPath;
-}
\ No newline at end of file
+    private Loading loading = new Loading();
+    private Chunking chunking = new Chunking();
+
+    @Data
+    public static class Loading {
+        // Loads sources concurrently on bounded pools instead of one at a time. Results keep the source order.
+        private boolean parallel = false;
+        // Workers for file sources (CPU-bound parsing). 0 means one per available processor.
+        private int fileThreads = 0;
+        // Workers for URL sources, limited separately so slow downloads do not occupy the parsing workers.
+        private int urlThreads = 4;
+        // A source still loading this long after it started is abandoned (its loader thread is interrupted).
+        private Duration sourceTimeout = Duration.ofMinutes(5);
+        // Documents per batch when sources are streamed to the indexers.
+        private int batchSize = 100;
+        // Sources loaded ahead of the batch being consumed when streaming in parallel. 0 means file-threads + url-threads.
+        private int prefetchSources = 0;
+    }
+
+    @Data
+    public static class Chunking {
+        // Splits loaded documents into token-bounded chunks before indexing. Runs on the loading workers.
+        private boolean enabled = false;
+        // Upper bound on a chunk's size in tokens.
+        private int chunkTokens = 512;
+        // Trailing sentences of a chunk repeated at the start of the next one, in tokens. Capped at half a chunk.
+        private int overlapTokens = 64;
+        // Starts a new chunk at markdown (#) and numbered (1.2 Title) heading lines; no overlap crosses a heading.
+        private boolean splitOnHeadings = true;
+        // Model whose tokenizer counts the tokens, e.g. the embedding model. Unset means cl100k_base.
+        private String tokenizerModel;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.loaders.orchestrator;
+
+import ai.kompile.core.llm.TokenizerService;
+import ai.kompile.core.llm.config.LlmTokenProperties;
+import ai.kompile.loaders.orchestrator.config.AppDocumentSourceProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Chunks generated texts with the real cl100k_base tokenizer and checks chunks against the parent text.
+ */
+class DocumentChunkerTest {
+
+    private static final int CHUNK_TOKENS = 40;
+
+    private final TokenizerService tokenizer = new TokenizerService(new LlmTokenProperties());
+
+    private DocumentChunker chunker(int overlapTokens) {
+        AppDocumentSourceProperties properties = new AppDocumentSourceProperties();
+        properties.getChunking().setEnabled(true);
+        properties.getChunking().setChunkTokens(CHUNK_TOKENS);
+        properties.getChunking().setOverlapTokens(overlapTokens);
+        return new DocumentChunker(properties, tokenizer);
+    }
+
+    private static String sentences(String topic, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> "The " + topic + " note number " + i + " mentions a few plain facts.")
+                .collect(Collectors.joining(" "));
+    }
+
+    private static int start(Document chunk) {
+        return (Integer) chunk.getMetadata().get("start_offset");
+    }
+
+    private static int end(Document chunk) {
+        return (Integer) chunk.getMetadata().get("end_offset");
+    }
+
+    private int tokens(String text) {
+        return tokenizer.countTokens(null, text);
+    }
+
+    @Test
+    void passesDocumentsThatFitThroughUnchanged() {
+        Document small = new Document("short", "One short sentence.", Map.of());
+
+        assertThat(chunker(8).chunk(small)).containsExactly(small);
+    }
+
+    @Test
+    void cutsBetweenSentencesWithOffsetsIntoTheParent() {
+        String text = sentences("apple", 20);
+        Document parent = new Document("parent", text, Map.of("source", "notes.txt"));
+
+        List<Document> chunks = chunker(0).chunk(parent);
+
+        assertThat(chunks).hasSizeGreaterThan(3);
+        assertThat(start(chunks.get(0))).isZero();
+        assertThat(end(chunks.get(chunks.size() - 1))).isEqualTo(text.length());
+        for (int i = 0; i < chunks.size(); i++) {
+            Document chunk = chunks.get(i);
+            assertThat(chunk.getText()).isEqualTo(text.substring(start(chunk), end(chunk)));
+            assertThat(chunk.getText()).startsWith("The apple note").endsWith(".");
+            assertThat(tokens(chunk.getText())).isLessThanOrEqualTo(CHUNK_TOKENS);
+            assertThat(chunk.getMetadata())
+                    .containsEntry("source", "notes.txt")
+                    .containsEntry("parent_document_id", "parent")
+                    .containsEntry("chunk_index", i)
+                    .containsEntry("chunk_count", chunks.size())
+                    .containsEntry("chunk_tokens", tokens(chunk.getText()));
+            if (i > 0) {
+                // Without overlap the chunks tile the text: each starts after the previous one ends.
+                assertThat(start(chunk)).isGreaterThan(end(chunks.get(i - 1)));
+            }
+        }
+    }
+
+    @Test
+    void capsTheOverlapAtHalfAChunk() {
+        String text = sentences("pear", 20);
+
+        List<Document> chunks = chunker(1_000).chunk(new Document("parent", text, Map.of()));
+
+        assertThat(chunks).hasSizeGreaterThan(2);
+        for (int i = 1; i < chunks.size(); i++) {
+            int previousEnd = end(chunks.get(i - 1));
+            int start = start(chunks.get(i));
+            assertThat(start).isLessThan(previousEnd);
+            assertThat(tokens(text.substring(start, previousEnd))).isLessThanOrEqualTo(CHUNK_TOKENS / 2);
+            assertThat(tokens(chunks.get(i).getText())).isLessThanOrEqualTo(CHUNK_TOKENS);
+        }
+    }
+
+    @Test
+    void startsANewChunkWithoutOverlapAtAHeading() {
+        String text = "# Intro\n\n" + sentences("intro", 6) + "\n\n# Details\n\n" + sentences("detail", 6);
+        int details = text.indexOf("# Details");
+
+        List<Document> chunks = chunker(20).chunk(new Document("parent", text, Map.of()));
+
+        Document atHeading = chunks.stream().filter(c -> c.getText().contains("# Details")).findFirst().orElseThrow();
+        assertThat(start(atHeading)).isEqualTo(details);
+        assertThat(atHeading.getMetadata()).containsEntry("section_heading", "Details");
+        for (Document chunk : chunks) {
+            // No chunk reaches across the heading, in either direction.
+            assertThat(start(chunk) < details && end(chunk) > details).isFalse();
+            assertThat(chunk.getMetadata()).containsEntry("section_heading",
+                    start(chunk) < details ? "Intro" : "Details");
+        }
+    }
+
+    @Test
+    void keepsConsecutiveHeadingsWithTheTextBelowThem() {
+        String text = sentences("preface", 5) + "\n\n# Part One\n## 1.1 Scope\n\n" + sentences("scope", 5);
+        int part = text.indexOf("# Part One");
+
+        List<Document> chunks = chunker(0).chunk(new Document("parent", text, Map.of()));
+
+        Document atPart = chunks.stream().filter(c -> start(c) == part).findFirst().orElseThrow();
+        assertThat(atPart.getText()).startsWith("# Part One\n## 1.1 Scope\n\nThe scope note number 0");
+        assertThat(chunks).noneMatch(c -> c.getText().strip().endsWith("Scope"));
+    }
+
+    @Test
+    void splitsAnOverLongSentenceIntoRunsOfWholeWords() {
+        String text = IntStream.range(0, 120).mapToObj(i -> "word" + i).collect(Collectors.joining(" "));
+
+        List<Document> chunks = chunker(0).chunk(new Document("parent", text, Map.of()));
+
+        assertThat(chunks).hasSizeGreaterThan(1);
+        assertThat(chunks.stream().map(Document::getText).collect(Collectors.joining(" "))).isEqualTo(text);
+        for (Document chunk : chunks) {
+            assertThat(chunk.getText()).isEqualTo(text.substring(start(chunk), end(chunk)));
+            assertThat(start(chunk) == 0 || text.charAt(start(chunk) - 1) == ' ').isTrue();
+            assertThat(end(chunk) == text.length() || text.charAt(end(chunk)) == ' ').isTrue();
+            assertThat(tokens(chunk.getText())).isLessThanOrEqualTo(CHUNK_TOKENS);
+        }
+    }
+}
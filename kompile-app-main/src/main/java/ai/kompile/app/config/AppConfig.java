@@ -18,10 +18,24 @@ package ai.kompile.app.config; // Package within kompile-app-main
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule; // For Java 8+ date/time
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Configuration
 public class AppConfig {
 
@@ -38,4 +52,78 @@ public class AppConfig {
         // Add any other custom ObjectMapper configurations here
         return objectMapper;
     }
-}
\ No newline at end of file
+
+    /**
+     * Boot's own task executor, declared here because the RAG pools below are {@code Executor} beans and would
+     * otherwise make Boot skip it, leaving Spring MVC async (the SSE and NDJSON writers) on an unpooled
+     * SimpleAsyncTaskExecutor. Built like Boot's: from {@code spring.task.execution.*}, or on virtual threads
+     * when {@code spring.threads.virtual.enabled=true}.
+     */
+    @Lazy
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder threadPoolTaskExecutorBuilder,
+                                                     SimpleAsyncTaskExecutorBuilder simpleAsyncTaskExecutorBuilder,
+                                                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        return virtualThreads ? simpleAsyncTaskExecutorBuilder.build() : threadPoolTaskExecutorBuilder.build();
+    }
+
+    /**
+     * Bounded pool for the keyword and semantic retrieval legs of RAG queries. Kept separate from the web
+     * server threads so a slow retriever cannot starve request handling; when it is saturated new legs are
+     * rejected and skipped instead of queueing without limit.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService ragRetrievalExecutor(RagProperties ragProperties,
+                                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            // Every leg still carries app.rag.retrieval.timeout, so there is nothing to gain from a pool bound.
+            return newVirtualThreadPerTaskExecutor();
+        }
+        RagProperties.Retrieval retrieval = ragProperties.getRetrieval();
+        return boundedPool("rag-retrieval-", retrieval.getThreads(), retrieval.getQueueCapacity());
+    }
+
+    /**
+     * Runs the blocking work behind the CompletableFuture endpoints (RAG queries, direct search, direct tool
+     * calls) so servlet threads are released while the retriever and LLM round trips are in flight.
+     * <p>
+     * With {@code spring.threads.virtual.enabled=true} (Java 21 runtime) every request gets its own virtual
+     * thread, so the number of in-flight queries is bounded by memory rather than by a pool size. Otherwise a
+     * bounded platform pool is used and requests beyond its queue are rejected.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService ragRequestExecutor(RagProperties ragProperties,
+                                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return newVirtualThreadPerTaskExecutor();
+        }
+        RagProperties.Async async = ragProperties.getAsync();
+        return boundedPool("rag-request-", async.getThreads(), async.getQueueCapacity());
+    }
+
+    private static ExecutorService boundedPool(String namePrefix, int threads, int queueCapacity) {
+        int size = Math.max(1, threads);
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, namePrefix + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Looked up reflectively so the default build can keep targeting Java 17.
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("spring.threads.virtual.enabled=true requires a Java 21 or newer runtime (running "
+                    + Runtime.version() + ").", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create a virtual-thread executor: " + e.getMessage(), e);
+        }
+    }
+}
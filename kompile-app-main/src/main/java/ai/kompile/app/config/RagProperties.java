@@ -0,0 +1,292 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings for the hybrid RAG pipeline in {@link ai.kompile.app.rag.RagServiceImpl}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.rag")
+public class RagProperties {
+
+    private Retrieval retrieval = new Retrieval();
+
+    private Fusion fusion = new Fusion();
+
+    private Rerank rerank = new Rerank();
+
+    private Compression compression = new Compression();
+
+    private Context context = new Context();
+
+    private AnswerCache answerCache = new AnswerCache();
+
+    private Coalescing coalescing = new Coalescing();
+
+    private Async async = new Async();
+
+    private Overload overload = new Overload();
+
+    private Batch batch = new Batch();
+
+    @Data
+    public static class Retrieval {
+        /**
+         * How long a query waits for the keyword and semantic legs together. A leg that has not
+         * finished by then is dropped and the query continues with whatever the other leg returned.
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+
+        /**
+         * Size of the dedicated retrieval pool. Each query uses up to two threads.
+         */
+        private int threads = 8;
+
+        /**
+         * Retrieval tasks that may wait for a free thread before new ones are rejected (and their leg skipped).
+         */
+        private int queueCapacity = 64;
+
+        /**
+         * Candidates requested from the keyword retriever before fusion.
+         */
+        private int keywordTopK = 10;
+
+        /**
+         * Candidates requested from the vector store before fusion.
+         */
+        private int semanticTopK = 10;
+
+        private double similarityThreshold = 0.0;
+    }
+
+    public enum FusionMethod {
+        /**
+         * Reciprocal Rank Fusion: sum of weight / (rrfK + rank). Ignores raw scores, which are not comparable
+         * between BM25 and vector similarity.
+         */
+        RRF,
+        /**
+         * Sum of weight x min-max normalized score per retriever.
+         */
+        WEIGHTED
+    }
+
+    @Data
+    public static class Fusion {
+        private FusionMethod method = FusionMethod.RRF;
+
+        private int rrfK = 60;
+
+        private double keywordWeight = 1.0;
+
+        private double semanticWeight = 1.0;
+
+        /**
+         * Fused snippets handed to context assembly.
+         */
+        private int maxResults = 4;
+    }
+
+    @Data
+    public static class Rerank {
+        /**
+         * Reorders fused candidates with the application's Reranker (e.g. the ONNX cross-encoder enabled by
+         * app.rerank.cross-encoder.enabled). Ignored when no Reranker bean exists.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Fused candidates scored by the reranker. Each retriever is asked for at least this many hits.
+         */
+        private int candidates = 50;
+
+        /**
+         * Best-scoring candidates handed to context assembly.
+         */
+        private int topN = 5;
+
+        /**
+         * (query, passage) pairs per reranker call. Smaller batches let a timed-out rerank stop sooner
+         * and keep partial work in the score cache.
+         */
+        private int batchSize = 16;
+
+        /**
+         * Hard latency budget for reranking. When it runs out the fused order is used instead.
+         */
+        private Duration timeout = Duration.ofMillis(500);
+
+        /**
+         * (query, chunk) scores kept in memory, least recently used first out.
+         */
+        private int cacheSize = 10_000;
+    }
+
+    public enum CompressionMethod {
+        /**
+         * BM25 over the sentences of the retrieved snippets, with the query as the search terms.
+         */
+        BM25,
+        /**
+         * Cosine similarity between query and sentence embeddings. Needs a Spring AI EmbeddingModel bean;
+         * sentence embeddings are cached.
+         */
+        EMBEDDING
+    }
+
+    @Data
+    public static class Compression {
+        /**
+         * Keeps only the sentences of each snippet that best match the query (plus their neighbors) before
+         * context packing. Extractive: no extra LLM call.
+         */
+        private boolean enabled = false;
+
+        private CompressionMethod method = CompressionMethod.BM25;
+
+        /**
+         * Share of a snippet's tokens kept after compression.
+         */
+        private double ratio = 0.3;
+
+        /**
+         * Snippets shorter than this many tokens are kept whole.
+         */
+        private int minSnippetTokens = 150;
+
+        /**
+         * Sentences kept on each side of a selected sentence, so it keeps its immediate context.
+         */
+        private int neighbors = 1;
+
+        /**
+         * Sentence embeddings kept in memory for the EMBEDDING method, least recently used first out.
+         */
+        private int embeddingCacheSize = 20_000;
+    }
+
+    @Data
+    public static class Context {
+        /**
+         * Token budget for the retrieved context in the prompt, counted with the target model's tokenizer. Capped by
+         * what the model's context window leaves (app.llm.tokens.*).
+         */
+        private int maxTokens = 3000;
+
+        /**
+         * Estimated Jaccard similarity of word shingles above which a snippet counts as a near-duplicate
+         * of one already in the context and is dropped.
+         */
+        private double duplicateThreshold = 0.8;
+
+        /**
+         * Words per shingle for near-duplicate detection.
+         */
+        private int shingleSize = 5;
+
+        /**
+         * MinHash signature length. More functions give a more precise similarity estimate.
+         */
+        private int minHashFunctions = 64;
+    }
+
+    @Data
+    public static class AnswerCache {
+        /**
+         * Reuses answers of semantically equivalent earlier queries when their retrieved context is unchanged.
+         * Needs a Spring AI EmbeddingModel bean.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Minimum cosine similarity between query embeddings for a cached answer to be considered.
+         */
+        private double similarityThreshold = 0.95;
+
+        private Duration ttl = Duration.ofHours(1);
+
+        /**
+         * Cached answers kept; the oldest is dropped first.
+         */
+        private int maxEntries = 1000;
+    }
+
+    @Data
+    public static class Coalescing {
+        /**
+         * Lets identical concurrent queries (same normalized text, tool-calling flag and model) share one
+         * retrieval and LLM call.
+         */
+        private boolean enabled = true;
+    }
+
+    @Data
+    public static class Async {
+        /**
+         * Size of the pool that runs RAG, search and tool requests off the servlet threads. Ignored when
+         * spring.threads.virtual.enabled=true, where each request gets its own virtual thread.
+         */
+        private int threads = 32;
+
+        /**
+         * Requests that may wait for a free thread before new ones are rejected with 503.
+         */
+        private int queueCapacity = 256;
+    }
+
+    @Data
+    public static class Overload {
+        /**
+         * When the language model is at its concurrency limit (app.llm.limiter.*), answer with the retrieved
+         * passages instead of failing. Without context the request fails fast with 503.
+         */
+        private boolean retrievalOnly = true;
+
+        /**
+         * Passages included in a retrieval-only answer.
+         */
+        private int maxPassages = 3;
+    }
+
+    @Data
+    public static class Batch {
+        /**
+         * Largest batch accepted by /api/rag/query/batch.
+         */
+        private int maxQueries = 1000;
+
+        /**
+         * Queries of a batch answered at the same time. Keep it at or below the language model's concurrency
+         * limit (app.llm.limiter.*) so a batch does not crowd out interactive queries.
+         */
+        private int parallelism = 4;
+
+        /**
+         * How long a /api/rag/query/batch response may stream before it is closed and the remaining queries are
+         * cancelled. Independent of spring.mvc.async.request-timeout; 0 means no timeout.
+         */
+        private Duration timeout = Duration.ofHours(6);
+    }
+}
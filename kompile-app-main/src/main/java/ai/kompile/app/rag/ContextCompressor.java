@@ -0,0 +1,326 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.app.rag;
+
+import ai.kompile.app.config.RagProperties;
+import ai.kompile.core.embeddings.TimedEmbeddingModel;
+import ai.kompile.core.llm.TokenizerService;
+import ai.kompile.core.retrievers.RetrievedDoc;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Optional stage between reranking and context packing: splits each snippet into sentences, scores them
+ * against the query and keeps the best ones plus {@code app.rag.compression.neighbors} on each side, up to
+ * {@code app.rag.compression.ratio} of the snippet's tokens. Kept sentences stay in document order; a gap
+ * between them is marked with an ellipsis.
+ * <p>
+ * Sentences are scored with BM25 (statistics taken over all sentences of the query's snippets) or, with an
+ * EmbeddingModel, by cosine similarity to the query. A snippet with no sentence matching the query is kept
+ * whole, since it was retrieved for a reason the scorer cannot see. Tokens removed per request are published
+ * as the {@code kompile.rag.compression.tokens.saved} distribution summary.
+ */
+@Component
+public class ContextCompressor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContextCompressor.class);
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String GAP = " ... ";
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+
+    private final RagProperties ragProperties;
+    private final TokenizerService tokenizer;
+    private final ObjectProvider<EmbeddingModel> embeddingModelProvider;
+    private final Map<String, float[]> embeddingCache;
+    private final DistributionSummary tokensSaved;
+
+    private record Sentence(String text, int tokens, List<String> terms) {
+    }
+
+    public ContextCompressor(RagProperties ragProperties,
+                             TokenizerService tokenizer,
+                             ObjectProvider<EmbeddingModel> embeddingModelProvider,
+                             ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.ragProperties = ragProperties;
+        this.tokenizer = tokenizer;
+        this.embeddingModelProvider = embeddingModelProvider;
+        int maxEntries = Math.max(1, ragProperties.getCompression().getEmbeddingCacheSize());
+        this.embeddingCache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        this.tokensSaved = DistributionSummary.builder("kompile.rag.compression.tokens.saved")
+                .description("Snippet tokens removed by extractive compression per request")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return ragProperties.getCompression().isEnabled();
+    }
+
+    /**
+     * Compresses each doc's content for {@code query}, counting tokens for {@code model}. Metadata is kept and
+     * the original token count is added as {@code compressed_from_tokens} where a doc was shortened.
+     */
+    public List<RetrievedDoc> compress(String query, List<RetrievedDoc> docs, String model) {
+        RagProperties.Compression config = ragProperties.getCompression();
+        List<List<Sentence>> split = new ArrayList<>(docs.size());
+        for (RetrievedDoc doc : docs) {
+            split.add(doc.getContent() == null ? List.of() : sentences(doc.getContent(), model));
+        }
+        List<double[]> scores = score(query, split, config.getMethod());
+
+        List<RetrievedDoc> compressed = new ArrayList<>(docs.size());
+        int before = 0;
+        int after = 0;
+        for (int d = 0; d < docs.size(); d++) {
+            RetrievedDoc doc = docs.get(d);
+            List<Sentence> sentences = split.get(d);
+            int tokens = sentences.stream().mapToInt(Sentence::tokens).sum();
+            before += tokens;
+            String text = sentences.size() > 1 && tokens >= config.getMinSnippetTokens()
+                    ? extract(sentences, scores.get(d), (int) Math.ceil(tokens * config.getRatio()), config.getNeighbors())
+                    : null;
+            if (text == null) {
+                compressed.add(doc);
+                after += tokens;
+                continue;
+            }
+            Map<String, Object> metadata = new HashMap<>();
+            if (doc.getMetadata() != null) {
+                metadata.putAll(doc.getMetadata());
+            }
+            metadata.put("compressed_from_tokens", tokens);
+            compressed.add(new RetrievedDoc(doc.getId(), text, doc.getScore(), metadata));
+            after += tokenizer.countTokens(model, text);
+        }
+        tokensSaved.record(Math.max(0, before - after));
+        logger.debug("Compressed {} snippet(s) from {} to {} token(s) with {}.", docs.size(), before, after, config.getMethod());
+        return compressed;
+    }
+
+    /**
+     * Picks sentences by descending score, each with its neighbors, while they fit in {@code budget} tokens.
+     * Returns null if nothing matched the query or nothing would be removed.
+     */
+    private static String extract(List<Sentence> sentences, double[] scores, int budget, int neighbors) {
+        List<Integer> ranked = IntStream.range(0, sentences.size()).boxed()
+                .filter(i -> scores[i] > 0)
+                .sorted(Comparator.comparingDouble((Integer i) -> scores[i]).reversed())
+                .toList();
+        if (ranked.isEmpty()) {
+            return null;
+        }
+        boolean[] keep = new boolean[sentences.size()];
+        int used = 0;
+        for (int anchor : ranked) {
+            // The best sentence is always kept, even if it alone exceeds the budget.
+            if (!keep[anchor] && used > 0 && used + sentences.get(anchor).tokens() > budget) {
+                continue;
+            }
+            for (int i = Math.max(0, anchor - neighbors); i <= Math.min(sentences.size() - 1, anchor + neighbors); i++) {
+                if (!keep[i] && (i == anchor || used + sentences.get(i).tokens() <= budget)) {
+                    keep[i] = true;
+                    used += sentences.get(i).tokens();
+                }
+            }
+            if (used >= budget) {
+                break;
+            }
+        }
+
+        StringBuilder text = new StringBuilder();
+        int kept = 0;
+        for (int i = 0; i < sentences.size(); i++) {
+            if (!keep[i]) {
+                continue;
+            }
+            if (text.length() > 0) {
+                text.append(keep[i - 1] ? " " : GAP);
+            } else if (i > 0) {
+                text.append(GAP.stripLeading());
+            }
+            text.append(sentences.get(i).text());
+            kept++;
+        }
+        if (kept == sentences.size()) {
+            return null;
+        }
+        if (!keep[sentences.size() - 1]) {
+            text.append(GAP.stripTrailing());
+        }
+        return text.toString();
+    }
+
+    private List<double[]> score(String query, List<List<Sentence>> split, RagProperties.CompressionMethod method) {
+        if (method == RagProperties.CompressionMethod.EMBEDDING) {
+            EmbeddingModel embeddingModel = embeddingModelProvider.getIfAvailable();
+            // Sentences are embedded on every query; keep them out of the persistent and query caches, which
+            // are meant for indexed chunks and search queries. This class keeps its own sentence cache.
+            if (embeddingModel instanceof TimedEmbeddingModel timed) {
+                embeddingModel = timed.getUndecorated();
+            }
+            if (embeddingModel == null) {
+                logger.warn("Compression method EMBEDDING needs an EmbeddingModel bean; using BM25.");
+            } else {
+                try {
+                    return embeddingScores(embeddingModel, query, split);
+                } catch (RuntimeException e) {
+                    logger.warn("Embedding sentences for compression failed: {}. Using BM25.", e.getMessage());
+                }
+            }
+        }
+        return bm25Scores(query, split);
+    }
+
+    /**
+     * BM25 with each sentence as a document and the sentences of all snippets as the collection.
+     */
+    private static List<double[]> bm25Scores(String query, List<List<Sentence>> split) {
+        Set<String> queryTerms = new HashSet<>(terms(query));
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        int sentenceCount = 0;
+        long totalLength = 0;
+        for (List<Sentence> sentences : split) {
+            for (Sentence sentence : sentences) {
+                sentenceCount++;
+                totalLength += sentence.terms().size();
+                for (String term : new HashSet<>(sentence.terms())) {
+                    if (queryTerms.contains(term)) {
+                        documentFrequency.merge(term, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        double averageLength = sentenceCount > 0 ? Math.max(1.0, (double) totalLength / sentenceCount) : 1.0;
+
+        List<double[]> scores = new ArrayList<>(split.size());
+        for (List<Sentence> sentences : split) {
+            double[] snippetScores = new double[sentences.size()];
+            for (int i = 0; i < sentences.size(); i++) {
+                List<String> terms = sentences.get(i).terms();
+                Map<String, Integer> frequencies = new HashMap<>();
+                for (String term : terms) {
+                    if (queryTerms.contains(term)) {
+                        frequencies.merge(term, 1, Integer::sum);
+                    }
+                }
+                double score = 0;
+                for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                    int df = documentFrequency.get(entry.getKey());
+                    double idf = Math.log(1 + (sentenceCount - df + 0.5) / (df + 0.5));
+                    double tf = entry.getValue();
+                    score += idf * tf * (BM25_K1 + 1)
+                            / (tf + BM25_K1 * (1 - BM25_B + BM25_B * terms.size() / averageLength));
+                }
+                snippetScores[i] = score;
+            }
+            scores.add(snippetScores);
+        }
+        return scores;
+    }
+
+    private List<double[]> embeddingScores(EmbeddingModel embeddingModel, String query, List<List<Sentence>> split) {
+        float[] queryVector = SemanticAnswerCache.normalize(embeddingModel.embed(query));
+        Map<String, float[]> vectors = new HashMap<>();
+        Map<String, String> missing = new LinkedHashMap<>();
+        synchronized (embeddingCache) {
+            for (List<Sentence> sentences : split) {
+                for (Sentence sentence : sentences) {
+                    String key = DigestUtils.md5DigestAsHex(sentence.text().getBytes(StandardCharsets.UTF_8));
+                    float[] cached = embeddingCache.get(key);
+                    if (cached != null) {
+                        vectors.put(key, cached);
+                    } else {
+                        missing.put(key, sentence.text());
+                    }
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<float[]> embedded = embeddingModel.embed(new ArrayList<>(missing.values()));
+            List<String> keys = new ArrayList<>(missing.keySet());
+            synchronized (embeddingCache) {
+                for (int i = 0; i < keys.size(); i++) {
+                    float[] vector = SemanticAnswerCache.normalize(embedded.get(i));
+                    vectors.put(keys.get(i), vector);
+                    embeddingCache.put(keys.get(i), vector);
+                }
+            }
+        }
+
+        List<double[]> scores = new ArrayList<>(split.size());
+        for (List<Sentence> sentences : split) {
+            double[] snippetScores = new double[sentences.size()];
+            for (int i = 0; i < sentences.size(); i++) {
+                float[] vector = vectors.get(DigestUtils.md5DigestAsHex(sentences.get(i).text().getBytes(StandardCharsets.UTF_8)));
+                snippetScores[i] = vector.length == queryVector.length ? SemanticAnswerCache.dot(queryVector, vector) : 0;
+            }
+            scores.add(snippetScores);
+        }
+        logger.debug("Embedded {} new sentence(s) for compression; {} from cache.", missing.size(), vectors.size() - missing.size());
+        return scores;
+    }
+
+    private List<Sentence> sentences(String text, String model) {
+        BreakIterator iterator = BreakIterator.getSentenceInstance(Locale.ROOT);
+        iterator.setText(text);
+        List<Sentence> sentences = new ArrayList<>();
+        for (int start = iterator.first(), end = iterator.next(); end != BreakIterator.DONE; start = end, end = iterator.next()) {
+            String sentence = text.substring(start, end).strip();
+            if (!sentence.isEmpty()) {
+                sentences.add(new Sentence(sentence, tokenizer.countTokens(model, sentence), terms(sentence)));
+            }
+        }
+        return sentences;
+    }
+
+    private static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (word.length() > 1) {
+                terms.add(word);
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.app.rag;
+
+import ai.kompile.app.config.RagProperties;
+import ai.kompile.core.llm.TokenizerService;
+import ai.kompile.core.llm.config.LlmTokenProperties;
+import ai.kompile.core.retrievers.RetrievedDoc;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.IntArrayList;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Assembles the LLM context from fused retrieval results: walks them in fused-rank order, drops snippets
+ * that are near-duplicates of one already taken (MinHash over word shingles, e.g. overlapping PDF pages or
+ * repeated boilerplate), and stops once the token budget is filled. The snippet that crosses the budget is
+ * cut at a token boundary if enough room is left for it to be useful.
+ * <p>
+ * Tokens are counted locally with the target model's tokenizer ({@link TokenizerService}), and the budget is
+ * capped by what that model's context window leaves for the prompt. The tokens saved per request are logged
+ * and published as the {@code kompile.rag.context.tokens.saved} distribution summary.
+ */
+@Component
+public class ContextPacker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContextPacker.class);
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_TRUNCATED_TOKENS = 64;
+
+    private final RagProperties ragProperties;
+    private final TokenizerService tokenizer;
+    private final LlmTokenProperties tokenProperties;
+    private final DistributionSummary tokensSaved;
+    private final DistributionSummary tokensPacked;
+
+    /**
+     * The packed context plus accounting for logging and metrics.
+     */
+    public record PackedContext(List<String> snippets,
+                                int candidateTokens,
+                                int packedTokens,
+                                int droppedDuplicates,
+                                int droppedOverBudget) {
+
+        public int tokensSaved() {
+            return candidateTokens - packedTokens;
+        }
+
+        /**
+         * The same snippets ordered by chunk identity rather than rank, so an equal set of snippets always
+         * produces the same prompt (and hits the provider's prefix cache).
+         */
+        public PackedContext inStableOrder() {
+            List<String> ordered = snippets.stream().sorted(Comparator.comparing(HybridFusion::chunkKey)).toList();
+            return new PackedContext(ordered, candidateTokens, packedTokens, droppedDuplicates, droppedOverBudget);
+        }
+    }
+
+    public ContextPacker(RagProperties ragProperties,
+                         TokenizerService tokenizer,
+                         LlmTokenProperties tokenProperties,
+                         ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.ragProperties = ragProperties;
+        this.tokenizer = tokenizer;
+        this.tokenProperties = tokenProperties;
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        this.tokensSaved = DistributionSummary.builder("kompile.rag.context.tokens.saved")
+                .description("Prompt context tokens removed by deduplication and budgeting per request")
+                .register(registry);
+        this.tokensPacked = DistributionSummary.builder("kompile.rag.context.tokens")
+                .description("Prompt context tokens sent to the LLM per request")
+                .register(registry);
+    }
+
+    public PackedContext pack(List<RetrievedDoc> docs) {
+        return pack(docs, null);
+    }
+
+    /**
+     * Packs for {@code model} (as reported by {@link ai.kompile.core.llm.LanguageModel#getModelName()}), or for
+     * cl100k_base and the configured budget alone when the model is unknown.
+     */
+    public PackedContext pack(List<RetrievedDoc> docs, String model) {
+        RagProperties.Context config = ragProperties.getContext();
+        Encoding encoding = tokenizer.encodingFor(model);
+        int budget = tokenProperties.isEnabled()
+                ? Math.min(config.getMaxTokens(), tokenizer.promptBudget(model))
+                : config.getMaxTokens();
+        List<String> snippets = new ArrayList<>();
+        List<long[]> signatures = new ArrayList<>();
+        int candidateTokens = 0;
+        int packedTokens = 0;
+        int duplicates = 0;
+        int overBudget = 0;
+
+        for (RetrievedDoc doc : docs) {
+            String text = doc.getContent();
+            if (text == null || text.isBlank()) {
+                continue;
+            }
+            int tokens = encoding.countTokens(text);
+            candidateTokens += tokens;
+
+            long[] signature = minHash(text, config.getShingleSize(), config.getMinHashFunctions());
+            if (isNearDuplicate(signature, signatures, config.getDuplicateThreshold())) {
+                duplicates++;
+                continue;
+            }
+            int remaining = budget - packedTokens;
+            if (tokens <= remaining) {
+                snippets.add(text);
+                signatures.add(signature);
+                packedTokens += tokens;
+            } else if (remaining >= MIN_TRUNCATED_TOKENS) {
+                IntArrayList prefix = encoding.encode(text, remaining).getTokens();
+                snippets.add(encoding.decode(prefix));
+                signatures.add(signature);
+                packedTokens += prefix.size();
+            } else {
+                overBudget++;
+            }
+        }
+
+        PackedContext packed = new PackedContext(snippets, candidateTokens, packedTokens, duplicates, overBudget);
+        tokensSaved.record(packed.tokensSaved());
+        tokensPacked.record(packedTokens);
+        logger.info("Packed {} of {} snippet(s) into {} token(s) (budget {}); saved {} token(s) ({} near-duplicate(s), {} over budget).",
+                snippets.size(), docs.size(), packedTokens, budget, packed.tokensSaved(), duplicates, overBudget);
+        return packed;
+    }
+
+    private static boolean isNearDuplicate(long[] signature, List<long[]> accepted, double threshold) {
+        for (long[] other : accepted) {
+            if (estimatedJaccard(signature, other) >= threshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static double estimatedJaccard(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    /**
+     * MinHash signature over lower-cased word shingles; the fraction of equal slots between two signatures
+     * estimates the Jaccard similarity of their shingle sets.
+     */
+    static long[] minHash(String text, int shingleSize, int functions) {
+        String[] words = NON_WORD.split(text.toLowerCase(Locale.ROOT).trim());
+        Set<Long> shingles = new HashSet<>();
+        int size = Math.max(1, Math.min(shingleSize, words.length));
+        for (int i = 0; i + size <= words.length; i++) {
+            long hash = 0xcbf29ce484222325L;
+            for (int w = i; w < i + size; w++) {
+                hash = fnv1a(hash, words[w]);
+                hash = fnv1a(hash, " ");
+            }
+            shingles.add(hash);
+        }
+        long[] signature = new long[functions];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (long shingle : shingles) {
+            for (int f = 0; f < functions; f++) {
+                long h = mix(shingle + 0x9e3779b97f4a7c15L * (f + 1));
+                if (h < signature[f]) {
+                    signature[f] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static long fnv1a(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long z) {
+        // SplitMix64 finalizer: cheap, well-distributed family of hash functions indexed by the seed offset.
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
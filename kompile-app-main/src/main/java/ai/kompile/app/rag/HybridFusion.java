@@ -0,0 +1,164 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.app.rag;
+
+import ai.kompile.app.config.RagProperties;
+import ai.kompile.core.retrievers.RetrievedDoc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Merges the ranked lists of several retrievers into one list using Reciprocal Rank Fusion or weighted
+ * normalized-score fusion, then cuts it to {@code app.rag.fusion.max-results} (or the rerank candidate count).
+ * <p>
+ * Keyword and vector store ids are assigned independently at indexing time, so hits are deduplicated by a
+ * stable chunk key: a digest of the whitespace-normalized text. The same chunk found by both retrievers is
+ * therefore counted once, with both contributions added to its score.
+ */
+@Component
+public class HybridFusion {
+
+    private static final Logger logger = LoggerFactory.getLogger(HybridFusion.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final RagProperties ragProperties;
+
+    /**
+     * One retriever's results, best first.
+     */
+    public record RankedList(String source, double weight, List<RetrievedDoc> docs) {
+    }
+
+    private static final class Candidate {
+        private final RetrievedDoc first;
+        private double score;
+        private final Map<String, Integer> ranks = new LinkedHashMap<>();
+        private final Map<String, String> ids = new LinkedHashMap<>();
+
+        private Candidate(RetrievedDoc first) {
+            this.first = first;
+        }
+    }
+
+    public HybridFusion(RagProperties ragProperties) {
+        this.ragProperties = ragProperties;
+    }
+
+    public List<RetrievedDoc> fuse(List<RankedList> lists) {
+        return fuse(lists, ragProperties.getFusion().getMaxResults());
+    }
+
+    /**
+     * Fuses and cuts to {@code maxResults} instead of the configured limit, e.g. to keep a larger candidate
+     * set for reranking.
+     */
+    public List<RetrievedDoc> fuse(List<RankedList> lists, int maxResults) {
+        RagProperties.Fusion config = ragProperties.getFusion();
+        Map<String, Candidate> candidates = new LinkedHashMap<>();
+
+        for (RankedList list : lists) {
+            List<RetrievedDoc> docs = dedupe(list.docs());
+            double[] normalized = config.getMethod() == RagProperties.FusionMethod.WEIGHTED ? normalizedScores(docs) : null;
+            for (int i = 0; i < docs.size(); i++) {
+                RetrievedDoc doc = docs.get(i);
+                int rank = i + 1;
+                double contribution = normalized != null
+                        ? list.weight() * normalized[i]
+                        : list.weight() / (config.getRrfK() + rank);
+                Candidate candidate = candidates.computeIfAbsent(chunkKey(doc.getContent()), k -> new Candidate(doc));
+                candidate.score += contribution;
+                candidate.ranks.put(list.source(), rank);
+                if (doc.getId() != null) {
+                    candidate.ids.put(list.source(), doc.getId());
+                }
+            }
+        }
+
+        List<RetrievedDoc> fused = candidates.values().stream()
+                .sorted(Comparator.comparingDouble((Candidate c) -> c.score).reversed())
+                .limit(Math.max(0, maxResults))
+                .map(HybridFusion::toFusedDoc)
+                .collect(Collectors.toList());
+        logger.debug("Fused {} candidate(s) from {} list(s) with {} into {} result(s).",
+                candidates.size(), lists.size(), config.getMethod(), fused.size());
+        return fused;
+    }
+
+    /**
+     * Stable identity of a chunk's text, insensitive to whitespace differences between stores.
+     */
+    static String chunkKey(String content) {
+        String normalized = WHITESPACE.matcher(content).replaceAll(" ").trim();
+        return DigestUtils.md5DigestAsHex(normalized.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<RetrievedDoc> dedupe(List<RetrievedDoc> docs) {
+        Set<String> seen = new HashSet<>();
+        List<RetrievedDoc> unique = new ArrayList<>(docs.size());
+        for (RetrievedDoc doc : docs) {
+            if (doc != null && doc.getContent() != null && !doc.getContent().isBlank() && seen.add(chunkKey(doc.getContent()))) {
+                unique.add(doc);
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * Min-max normalizes one retriever's scores to [0, 1]. When the retriever reports no usable scores
+     * (all equal, e.g. the default adapter), falls back to a linear rank score.
+     */
+    private static double[] normalizedScores(List<RetrievedDoc> docs) {
+        double[] normalized = new double[docs.size()];
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (RetrievedDoc doc : docs) {
+            min = Math.min(min, doc.getScore());
+            max = Math.max(max, doc.getScore());
+        }
+        for (int i = 0; i < docs.size(); i++) {
+            normalized[i] = max > min
+                    ? (docs.get(i).getScore() - min) / (max - min)
+                    : 1.0 - (double) i / docs.size();
+        }
+        return normalized;
+    }
+
+    private static RetrievedDoc toFusedDoc(Candidate candidate) {
+        Map<String, Object> metadata = new HashMap<>();
+        if (candidate.first.getMetadata() != null) {
+            metadata.putAll(candidate.first.getMetadata());
+        }
+        metadata.put("fusion_ranks", candidate.ranks);
+        metadata.put("source_ids", candidate.ids);
+        String id = candidate.first.getId() != null ? candidate.first.getId() : chunkKey(candidate.first.getContent());
+        return new RetrievedDoc(id, candidate.first.getContent(), (float) candidate.score, metadata);
+    }
+}
@@ -16,11 +16,23 @@
 
 package ai.kompile.app.rag;
 
+import ai.kompile.app.config.RagProperties;
 import ai.kompile.core.embeddings.VectorStore;
 import ai.kompile.core.llm.LanguageModel;
+import ai.kompile.core.llm.LlmOverloadedException;
+import ai.kompile.core.llm.config.LlmPromptProperties;
+import ai.kompile.core.rag.RagAnswer;
+import ai.kompile.core.rag.RagBatchResult;
 import ai.kompile.core.rag.RagQuery;
 import ai.kompile.core.rag.RagService;
+import ai.kompile.core.rag.RagStageMetrics;
+import ai.kompile.core.rag.RagStreamEvent;
 import ai.kompile.core.retrievers.DocumentRetriever;
+import ai.kompile.core.retrievers.RetrievedDoc;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.messages.AssistantMessage;
@@ -31,14 +43,33 @@ import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.text.Normalizer;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 
@@ -46,82 +77,193 @@ import java.util.stream.Collectors;
 @Primary
 public class RagServiceImpl implements RagService {
     private static final Logger logger = LoggerFactory.getLogger(RagServiceImpl.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
 
     private final DocumentRetriever keywordRetriever;
     private final LanguageModel languageModel;
     // EmbeddingModel is not directly injected here if VectorStore's similaritySearch(String query,...)
     // internally uses an EmbeddingModel to embed the query.
     private final VectorStore vectorStore;
+    private final ExecutorService retrievalExecutor;
+    private final RagProperties ragProperties;
+    private final HybridFusion hybridFusion;
+    private final RerankStage rerankStage;
+    private final ContextCompressor contextCompressor;
+    private final ContextPacker contextPacker;
+    private final LlmPromptProperties promptProperties;
 
-    private static final int DEFAULT_KEYWORD_RESULTS = 2;
-    private static final int DEFAULT_SEMANTIC_RESULTS = 2;
-    private static final double DEFAULT_SIMILARITY_THRESHOLD = 0.0; // 0.0 means effectively no threshold for some stores, or use a higher value like 0.7
+    private final SemanticAnswerCache answerCache;
+    private final SingleFlight<String, RagAnswer> inFlightAnswers = new SingleFlight<>();
+    private final Counter coalescedRequests;
+    private final MeterRegistry meterRegistry;
+    private final String keywordProvider;
+    private final String vectorStoreProvider;
+    private final String languageModelProvider;
+
+    private record PreparedContext(List<RetrievedDoc> docs, ContextPacker.PackedContext packed, StageTimings timings) {
+    }
+
+    private record StreamSetup(PreparedContext prepared, SemanticAnswerCache.Lookup cacheLookup, String fingerprint,
+                               String cachedAnswer) {
+    }
 
     @Autowired
     public RagServiceImpl(
             DocumentRetriever keywordRetriever,
             LanguageModel languageModel,
-            VectorStore vectorStore) {
+            VectorStore vectorStore,
+            @Qualifier("ragRetrievalExecutor") ExecutorService retrievalExecutor,
+            RagProperties ragProperties,
+            HybridFusion hybridFusion,
+            RerankStage rerankStage,
+            ContextCompressor contextCompressor,
+            ContextPacker contextPacker,
+            LlmPromptProperties promptProperties,
+            SemanticAnswerCache answerCache,
+            ObjectProvider<MeterRegistry> meterRegistryProvider) {
         this.keywordRetriever = keywordRetriever;
         this.languageModel = languageModel;
         this.vectorStore = vectorStore;
+        this.retrievalExecutor = retrievalExecutor;
+        this.ragProperties = ragProperties;
+        this.hybridFusion = hybridFusion;
+        this.rerankStage = rerankStage;
+        this.contextCompressor = contextCompressor;
+        this.contextPacker = contextPacker;
+        this.promptProperties = promptProperties;
+        this.answerCache = answerCache;
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        this.meterRegistry = registry;
+        this.keywordProvider = RagStageMetrics.providerName(keywordRetriever);
+        this.vectorStoreProvider = RagStageMetrics.providerName(vectorStore);
+        this.languageModelProvider = RagStageMetrics.providerName(languageModel);
+        this.coalescedRequests = Counter.builder("kompile.rag.coalesced")
+                .description("Queries answered by sharing an identical in-flight request")
+                .register(registry);
+        Gauge.builder("kompile.rag.inflight", inFlightAnswers, SingleFlight::inFlightCount).register(registry);
         logger.info("RagServiceImpl (Hybrid) initialized with KeywordRetriever: {}, VectorStore: {}, LanguageModel: {}",
-                keywordRetriever.getClass().getSimpleName(),
-                vectorStore.getClass().getSimpleName(),
-                languageModel.getClass().getSimpleName());
+                keywordProvider, vectorStoreProvider, languageModelProvider);
     }
 
     @Override
     public String answerQuery(RagQuery ragQuery) {
+        return answer(ragQuery).answer();
+    }
+
+    @Override
+    public RagAnswer answer(RagQuery ragQuery) {
         logger.info("RagServiceImpl processing RAG query: '{}', useToolCalling: {}", ragQuery.getQuery(), ragQuery.isUseToolCalling());
 
         if (ragQuery.getQuery() == null || ragQuery.getQuery().trim().isEmpty()) {
             logger.warn("Received an empty or null query.");
-            return "Error: Query cannot be empty.";
+            return new RagAnswer("Error: Query cannot be empty.", Map.of());
         }
 
-        Set<String> combinedContextSet = new LinkedHashSet<>();
-
-        // 1. Keyword Search (Sparse Retrieval)
+        if (!ragProperties.getCoalescing().isEnabled()) {
+            return computeAnswer(ragQuery, null);
+        }
+        // Identical queries arriving while one is in flight wait for it instead of repeating retrieval and the LLM call.
         try {
-            logger.debug("Performing keyword retrieval for: {}", ragQuery.getQuery());
-            List<String> keywordDocs = keywordRetriever.retrieve(ragQuery.getQuery(), DEFAULT_KEYWORD_RESULTS);
-            if (keywordDocs != null && !keywordDocs.isEmpty()) {
-                keywordDocs.stream()
-                        .filter(doc -> doc != null && !doc.startsWith("Error:"))
-                        .forEach(combinedContextSet::add);
-                logger.info("Keyword search returned {} valid snippets.",
-                        keywordDocs.stream().filter(doc -> doc != null && !doc.startsWith("Error:")).count());
-            } else {
-                logger.warn("Keyword search returned no results or an error for query: {}", ragQuery.getQuery());
+            SingleFlight.Result<RagAnswer> result = inFlightAnswers.execute(coalescingKey(ragQuery), () -> computeAnswer(ragQuery, null));
+            if (result.shared()) {
+                coalescedRequests.increment();
+                logger.info("Query '{}' shared the answer of an identical in-flight request.", ragQuery.getQuery());
             }
-        } catch (Exception e) {
-            logger.error("Error during keyword retrieval for query [{}]: {}", ragQuery.getQuery(), e.getMessage(), e);
+            return result.value();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for an identical in-flight query: {}", ragQuery.getQuery());
+            return new RagAnswer("Error: Interrupted while waiting for the answer.", Map.of());
         }
+    }
 
-        // 2. Semantic Search (Dense Retrieval) using VectorStore
-        try {
-            logger.debug("Performing semantic vector search for: {}", ragQuery.getQuery());
-            // Assumes VectorStore.similaritySearch(String query,...) handles query embedding.
-            List<Document> semanticSpringAiDocs = vectorStore.similaritySearch(
-                    ragQuery.getQuery(),
-                    DEFAULT_SEMANTIC_RESULTS,
-                    DEFAULT_SIMILARITY_THRESHOLD
-            );
-            if (semanticSpringAiDocs != null && !semanticSpringAiDocs.isEmpty()) {
-                semanticSpringAiDocs.stream()
-                        .map(Document::getText) // Document.getContent()
-                        .filter(content -> content != null && !content.trim().isEmpty())
-                        .forEach(combinedContextSet::add);
-                logger.info("Semantic search returned {} valid snippets.", semanticSpringAiDocs.size());
-            } else {
-                logger.warn("Semantic search returned no results for query: {}", ragQuery.getQuery());
+    /**
+     * Answers a batch: identical queries are answered once, keyword retrieval for all distinct queries runs as one
+     * batch search up front, and the rest of each pipeline (semantic search, fusion, context assembly and the LLM
+     * call) runs on {@code executor} with at most {@code parallelism} queries in progress.
+     */
+    @Override
+    public Flux<RagBatchResult> answerBatch(List<RagQuery> queries, int parallelism, Executor executor) {
+        Map<String, List<Integer>> indexesByKey = new LinkedHashMap<>();
+        List<RagQuery> distinct = new ArrayList<>();
+        List<Flux<RagBatchResult>> invalid = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i++) {
+            RagQuery ragQuery = queries.get(i);
+            if (ragQuery == null || ragQuery.getQuery() == null || ragQuery.getQuery().trim().isEmpty()) {
+                invalid.add(Flux.just(new RagBatchResult(i, ragQuery, new RagAnswer("Error: Query cannot be empty.", Map.of()))));
+                continue;
             }
-        } catch (Exception e) {
-            logger.error("Error during semantic vector search for query [{}]: {}", ragQuery.getQuery(), e.getMessage(), e);
+            List<Integer> indexes = indexesByKey.computeIfAbsent(coalescingKey(ragQuery), k -> new ArrayList<>());
+            if (indexes.isEmpty()) {
+                distinct.add(ragQuery);
+            }
+            indexes.add(i);
         }
+        logger.info("RagServiceImpl processing batch of {} queries ({} distinct), parallelism {}.",
+                queries.size(), distinct.size(), parallelism);
 
-        List<String> finalContext = new ArrayList<>(combinedContextSet);
+        Flux<RagBatchResult> answers = Mono.fromCallable(() -> batchKeywordDocs(distinct))
+                .subscribeOn(Schedulers.fromExecutor(executor))
+                .onErrorResume(RejectedExecutionException.class, e -> {
+                    // Null entries make each query run its own keyword search once it gets a thread.
+                    logger.warn("Request executor rejected the batch keyword search for {} queries; searching per query instead.",
+                            distinct.size());
+                    return Mono.just(Collections.nCopies(distinct.size(), null));
+                })
+                .flatMapMany(keywordDocs -> Flux.range(0, distinct.size())
+                        .flatMap(d -> Mono.fromCallable(() -> computeAnswer(distinct.get(d), keywordDocs.get(d)))
+                                .subscribeOn(Schedulers.fromExecutor(executor))
+                                .onErrorResume(e -> {
+                                    logger.error("Error answering batch query [{}]: {}", distinct.get(d).getQuery(), e.getMessage(), e);
+                                    return Mono.just(new RagAnswer("Error: Failed to process RAG query due to an unexpected internal error.", Map.of()));
+                                })
+                                .flatMapIterable(answer -> indexesByKey.get(coalescingKey(distinct.get(d))).stream()
+                                        .map(i -> new RagBatchResult(i, queries.get(i), answer))
+                                        .toList()),
+                                Math.max(1, parallelism)));
+        return Flux.concat(Flux.concat(invalid), answers);
+    }
+
+    /**
+     * Keyword hits for every query with one batch search, so a native batch searcher can share its work.
+     */
+    private List<List<RetrievedDoc>> batchKeywordDocs(List<RagQuery> distinct) {
+        int topK = Math.max(ragProperties.getRetrieval().getKeywordTopK(),
+                rerankStage.isActive() ? ragProperties.getRerank().getCandidates() : 0);
+        List<String> texts = distinct.stream().map(RagQuery::getQuery).toList();
+        List<List<RetrievedDoc>> batch;
+        try {
+            batch = timed("keyword_retrieval_batch", keywordProvider, new StageTimings(),
+                    () -> keywordRetriever.retrieveWithScoresBatch(texts, topK), RagServiceImpl::retrievalOutcome);
+        } catch (RuntimeException e) {
+            logger.error("Batch keyword retrieval failed for {} queries: {}. Continuing without keyword results.",
+                    texts.size(), e.getMessage(), e);
+            batch = null;
+        }
+        List<List<RetrievedDoc>> keywordDocs = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            List<RetrievedDoc> docs = batch != null && i < batch.size() && batch.get(i) != null ? batch.get(i) : List.of();
+            keywordDocs.add(docs.stream()
+                    .filter(doc -> doc != null && doc.getContent() != null && !doc.getContent().startsWith("Error:"))
+                    .collect(Collectors.toList()));
+        }
+        return keywordDocs;
+    }
+
+    /**
+     * @param keywordDocs keyword hits already fetched for this query (by a batch search), or null to search now
+     */
+    private RagAnswer computeAnswer(RagQuery ragQuery, List<RetrievedDoc> keywordDocs) {
+        long startNanos = System.nanoTime();
+        StageTimings timings = new StageTimings();
+        // The semantic answer cache is probed first; a candidate is only used if retrieval below still
+        // produces the same context it was answered from.
+        SemanticAnswerCache.Lookup cacheLookup = answerCache.isEnabled()
+                ? timed("answer_cache", "SemanticAnswerCache", timings,
+                        () -> answerCache.lookup(ragQuery.getQuery(), ragQuery.isUseToolCalling()),
+                        lookup -> lookup != null ? RagStageMetrics.SUCCESS : RagStageMetrics.ERROR)
+                : null;
+        List<String> finalContext = prepareContext(ragQuery.getQuery(), timings, keywordDocs).packed().snippets();
         if (finalContext.isEmpty()) {
             logger.warn("No context retrieved from any source for query: {}. LLM will answer without specific context.", ragQuery.getQuery());
         }
@@ -130,6 +272,64 @@ public class RagServiceImpl implements RagService {
                 finalContext.size(),
                 finalContext.stream().map(s -> s.substring(0, Math.min(s.length(), 70)) + (s.length() > 70 ? "..." : "")).collect(Collectors.toList()));
 
+        String fingerprint = cacheLookup != null ? SemanticAnswerCache.fingerprint(finalContext) : null;
+        String cachedAnswer = answerCache.answerFor(cacheLookup, fingerprint);
+        if (cachedAnswer != null) {
+            logger.info("Answer cache hit for query: '{}'; skipping the language model.", ragQuery.getQuery());
+            return finish(cachedAnswer, timings, startNanos);
+        }
+
+        String answer;
+        try {
+            answer = timed("llm", languageModelProvider, timings, () -> generateAnswer(ragQuery, finalContext),
+                    text -> text == null || text.startsWith("Error:") ? RagStageMetrics.ERROR : RagStageMetrics.SUCCESS);
+        } catch (LlmOverloadedException e) {
+            // Not cached: the next request may well get a generated answer.
+            logger.warn("Language model rejected query '{}' by admission control: {}", ragQuery.getQuery(), e.getMessage());
+            return finish(overloadedAnswer(finalContext), timings, startNanos);
+        }
+        answerCache.put(cacheLookup, ragQuery.getQuery(), ragQuery.isUseToolCalling(), fingerprint, answer);
+        return finish(answer, timings, startNanos);
+    }
+
+    private RagAnswer finish(String answer, StageTimings timings, long startNanos) {
+        timings.add("total", System.nanoTime() - startNanos);
+        Map<String, Long> millis = timings.toMillis();
+        logger.info("RAG stage timings (ms): {}", millis);
+        return new RagAnswer(answer, millis);
+    }
+
+    /**
+     * Runs one pipeline stage, records it in the {@code kompile.rag.stage} timer and the request's timings.
+     */
+    private <T> T timed(String stage, String provider, StageTimings timings, Supplier<T> work, Function<T, String> outcome) {
+        long start = System.nanoTime();
+        String result = RagStageMetrics.ERROR;
+        try {
+            T value = work.get();
+            result = outcome.apply(value);
+            return value;
+        } catch (LlmOverloadedException e) {
+            result = RagStageMetrics.REJECTED;
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            RagStageMetrics.record(meterRegistry, stage, provider, result, elapsed);
+            timings.add(stage, elapsed);
+        }
+    }
+
+    /**
+     * Requests coalesce when they would produce the same answer: same normalized query text, same
+     * tool-calling mode and same language model.
+     */
+    private String coalescingKey(RagQuery ragQuery) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(ragQuery.getQuery(), Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        return languageModel.getClass().getName() + '|' + ragQuery.isUseToolCalling() + '|' + normalized;
+    }
+
+    private String generateAnswer(RagQuery ragQuery, List<String> finalContext) {
         // 3. Call Language Model
         try {
             if (!ragQuery.isUseToolCalling()) {
@@ -197,9 +397,225 @@ public class RagServiceImpl implements RagService {
 
                 return "Error: Could not get a final response content from the language model after considering tools. Please check logs for details.";
             }
+        } catch (LlmOverloadedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error interacting with Language Model for query [{}]: {}", ragQuery.getQuery(), e.getMessage(), e);
             return "Error: Failed to get an answer from the language model due to an unexpected internal error.";
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public Flux<RagStreamEvent> streamAnswer(RagQuery ragQuery) {
+        if (ragQuery.getQuery() == null || ragQuery.getQuery().trim().isEmpty()) {
+            logger.warn("Received an empty or null query.");
+            return Flux.just(RagStreamEvent.error("Error: Query cannot be empty."));
+        }
+        if (ragQuery.isUseToolCalling()) {
+            // Tool calls need the complete model turn, so the answer is produced in one piece and sent as one token event.
+            logger.info("Streaming requested with tool calling for query: '{}'; answer will be sent when complete.", ragQuery.getQuery());
+            return RagService.super.streamAnswer(ragQuery).subscribeOn(Schedulers.boundedElastic());
+        }
+        String query = ragQuery.getQuery();
+        logger.info("RagServiceImpl streaming RAG query: '{}'", query);
+        return Mono.fromCallable(() -> {
+                    SemanticAnswerCache.Lookup cacheLookup = answerCache.lookup(query, false);
+                    PreparedContext prepared = prepareContext(query, new StageTimings(), null);
+                    String fingerprint = cacheLookup != null ? SemanticAnswerCache.fingerprint(prepared.packed().snippets()) : null;
+                    return new StreamSetup(prepared, cacheLookup, fingerprint, answerCache.answerFor(cacheLookup, fingerprint));
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(setup -> Flux.concat(
+                        Mono.just(RagStreamEvent.metadata(streamMetadata(query, setup))),
+                        setup.cachedAnswer() != null
+                                ? Mono.just(RagStreamEvent.token(setup.cachedAnswer()))
+                                : streamAndCache(query, setup),
+                        Mono.just(RagStreamEvent.done())))
+                .onErrorResume(e -> {
+                    logger.error("Error streaming answer for query [{}]: {}", query, e.getMessage(), e);
+                    return Flux.just(RagStreamEvent.error("Error: Failed to stream an answer from the language model."));
+                });
+    }
+
+    /**
+     * Retrieval, fusion, optional reranking and compression, and context packing for one query.
+     *
+     * @param prefetchedKeywordDocs keyword hits from a batch search, or null to run the keyword leg here
+     */
+    private PreparedContext prepareContext(String query, StageTimings timings, List<RetrievedDoc> prefetchedKeywordDocs) {
+        // With reranking, retrieval and fusion keep a wider candidate set and the reranker picks the best few.
+        boolean rerank = rerankStage.isActive();
+        int candidates = rerank ? ragProperties.getRerank().getCandidates() : 0;
+
+        // 1 + 2. Keyword (sparse) and semantic (dense) retrieval run concurrently; the query waits for
+        // the slower of the two, bounded by the retrieval timeout, instead of their sum.
+        long deadlineNanos = System.nanoTime() + ragProperties.getRetrieval().getTimeout().toNanos();
+        Future<List<RetrievedDoc>> keywordLeg = prefetchedKeywordDocs != null
+                ? CompletableFuture.completedFuture(prefetchedKeywordDocs)
+                : submitLeg("Keyword", query, () -> timed("keyword_retrieval", keywordProvider, timings,
+                        () -> retrieveKeyword(query, candidates), RagServiceImpl::retrievalOutcome));
+        Future<List<RetrievedDoc>> semanticLeg = submitLeg("Semantic", query, () -> timed("vector_search", vectorStoreProvider, timings,
+                () -> retrieveSemantic(query, candidates), RagServiceImpl::retrievalOutcome));
+        List<RetrievedDoc> keywordDocs = awaitLeg("Keyword", query, keywordLeg, deadlineNanos);
+        List<RetrievedDoc> semanticDocs = awaitLeg("Semantic", query, semanticLeg, deadlineNanos);
+
+        // Rank-aware fusion of both legs, deduplicated by chunk and cut to the configured number of snippets.
+        RagProperties.Fusion fusion = ragProperties.getFusion();
+        List<HybridFusion.RankedList> rankedLists = List.of(
+                new HybridFusion.RankedList("keyword", fusion.getKeywordWeight(), keywordDocs),
+                new HybridFusion.RankedList("semantic", fusion.getSemanticWeight(), semanticDocs));
+        List<RetrievedDoc> fusedDocs = timed("fusion", "HybridFusion", timings,
+                () -> hybridFusion.fuse(rankedLists, rerank ? candidates : fusion.getMaxResults()), RagServiceImpl::retrievalOutcome);
+        if (rerank) {
+            List<RetrievedDoc> candidateDocs = fusedDocs;
+            fusedDocs = timed("rerank", "RerankStage", timings, () -> rerankStage.rerank(query, candidateDocs), RagServiceImpl::retrievalOutcome);
+        }
+
+        // Optional extractive compression: only the sentences that match the query (and their neighbors) are kept.
+        String model = languageModel.getModelName();
+        List<RetrievedDoc> contextDocs = fusedDocs;
+        if (contextCompressor.isEnabled()) {
+            List<RetrievedDoc> rankedDocs = fusedDocs;
+            contextDocs = timed("compression", "ContextCompressor", timings,
+                    () -> contextCompressor.compress(query, rankedDocs, model), RagServiceImpl::retrievalOutcome);
+        }
+
+        // Near-duplicate suppression and token budgeting, in fused-rank order.
+        List<RetrievedDoc> packedDocs = contextDocs;
+        ContextPacker.PackedContext packed = timed("context_assembly", "ContextPacker", timings,
+                () -> contextPacker.pack(packedDocs, model), p -> p.snippets().isEmpty() ? RagStageMetrics.EMPTY : RagStageMetrics.SUCCESS);
+        if (promptProperties.isCacheFriendly()) {
+            packed = packed.inStableOrder();
+        }
+        return new PreparedContext(fusedDocs, packed, timings);
+    }
+
+    private static String retrievalOutcome(List<?> results) {
+        return results == null || results.isEmpty() ? RagStageMetrics.EMPTY : RagStageMetrics.SUCCESS;
+    }
+
+    private Flux<RagStreamEvent> streamAndCache(String query, StreamSetup setup) {
+        StringBuilder answer = new StringBuilder();
+        long start = System.nanoTime();
+        return languageModel.streamResponse(query, setup.prepared().packed().snippets())
+                .doOnNext(answer::append)
+                .doOnComplete(() -> {
+                    RagStageMetrics.record(meterRegistry, "llm", languageModelProvider, RagStageMetrics.SUCCESS, System.nanoTime() - start);
+                    answerCache.put(setup.cacheLookup(), query, false, setup.fingerprint(), answer.toString());
+                })
+                .doOnError(e -> RagStageMetrics.record(meterRegistry, "llm", languageModelProvider,
+                        e instanceof LlmOverloadedException ? RagStageMetrics.REJECTED : RagStageMetrics.ERROR, System.nanoTime() - start))
+                .map(RagStreamEvent::token)
+                .onErrorResume(LlmOverloadedException.class, e -> {
+                    logger.warn("Language model rejected streaming query '{}' by admission control: {}", query, e.getMessage());
+                    String fallback = overloadedAnswer(setup.prepared().packed().snippets());
+                    return Mono.just(fallback.startsWith("Error:") ? RagStreamEvent.error(fallback) : RagStreamEvent.token(fallback));
+                });
+    }
+
+    /**
+     * Answer for a query the language model could not take: the best retrieved passages when
+     * app.rag.overload.retrieval-only is set and there are any, otherwise a fast failure.
+     */
+    private String overloadedAnswer(List<String> context) {
+        RagProperties.Overload overload = ragProperties.getOverload();
+        if (!overload.isRetrievalOnly() || context.isEmpty()) {
+            return LlmOverloadedException.ERROR_MESSAGE;
+        }
+        StringBuilder answer = new StringBuilder("The language model is busy right now, so no answer could be generated. "
+                + "The most relevant passages found for your question are:");
+        int passages = Math.min(context.size(), Math.max(1, overload.getMaxPassages()));
+        for (int i = 0; i < passages; i++) {
+            answer.append("\n\n[").append(i + 1).append("] ").append(context.get(i).trim());
+        }
+        return answer.toString();
+    }
+
+    private static Map<String, Object> streamMetadata(String query, StreamSetup setup) {
+        PreparedContext prepared = setup.prepared();
+        List<Map<String, Object>> sources = prepared.docs().stream()
+                .map(doc -> {
+                    Map<String, Object> source = new LinkedHashMap<>();
+                    source.put("id", doc.getId());
+                    source.put("score", doc.getScore());
+                    return source;
+                })
+                .collect(Collectors.toList());
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("query", query);
+        metadata.put("snippets", prepared.packed().snippets().size());
+        metadata.put("contextTokens", prepared.packed().packedTokens());
+        metadata.put("timings", prepared.timings().toMillis());
+        metadata.put("sources", sources);
+        metadata.put("cached", setup.cachedAnswer() != null);
+        return metadata;
+    }
+
+    private List<RetrievedDoc> retrieveKeyword(String query, int minResults) {
+        logger.debug("Performing keyword retrieval for: {}", query);
+        List<RetrievedDoc> keywordDocs = keywordRetriever.retrieveWithScores(query,
+                Math.max(ragProperties.getRetrieval().getKeywordTopK(), minResults));
+        if (keywordDocs == null || keywordDocs.isEmpty()) {
+            logger.warn("Keyword search returned no results or an error for query: {}", query);
+            return Collections.emptyList();
+        }
+        List<RetrievedDoc> valid = keywordDocs.stream()
+                .filter(doc -> doc != null && doc.getContent() != null && !doc.getContent().startsWith("Error:"))
+                .collect(Collectors.toList());
+        logger.info("Keyword search returned {} valid snippets.", valid.size());
+        return valid;
+    }
+
+    private List<RetrievedDoc> retrieveSemantic(String query, int minResults) {
+        logger.debug("Performing semantic vector search for: {}", query);
+        // Assumes VectorStore.similaritySearch(String query,...) handles query embedding.
+        List<Document> semanticSpringAiDocs = vectorStore.similaritySearch(
+                query,
+                Math.max(ragProperties.getRetrieval().getSemanticTopK(), minResults),
+                ragProperties.getRetrieval().getSimilarityThreshold()
+        );
+        if (semanticSpringAiDocs == null || semanticSpringAiDocs.isEmpty()) {
+            logger.warn("Semantic search returned no results for query: {}", query);
+            return Collections.emptyList();
+        }
+        logger.info("Semantic search returned {} valid snippets.", semanticSpringAiDocs.size());
+        return semanticSpringAiDocs.stream()
+                .filter(doc -> doc.getText() != null && !doc.getText().trim().isEmpty())
+                .map(doc -> new RetrievedDoc(doc.getId(), doc.getText(),
+                        doc.getScore() != null ? doc.getScore().floatValue() : 0f, doc.getMetadata()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Submitted as a plain {@link Future} rather than a CompletableFuture, so that cancelling a timed-out leg
+     * interrupts its thread and gives it back to the bounded retrieval pool.
+     */
+    private <T> Future<List<T>> submitLeg(String leg, String query, Supplier<List<T>> retrieval) {
+        try {
+            return retrievalExecutor.submit(retrieval::get);
+        } catch (RejectedExecutionException e) {
+            logger.warn("{} retrieval skipped for query [{}]: retrieval pool is saturated.", leg, query);
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+    }
+
+    private <T> List<T> awaitLeg(String leg, String query, Future<List<T>> future, long deadlineNanos) {
+        try {
+            long remaining = Math.max(0, deadlineNanos - System.nanoTime());
+            List<T> result = future.get(remaining, TimeUnit.NANOSECONDS);
+            return result != null ? result : Collections.emptyList();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("{} retrieval timed out after {} for query [{}]; continuing without it.",
+                    leg, ragProperties.getRetrieval().getTimeout(), query);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.error("Error during {} retrieval for query [{}]: {}", leg.toLowerCase(), query, cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            logger.warn("Interrupted while waiting for {} retrieval for query [{}].", leg.toLowerCase(), query);
+        }
+        return Collections.emptyList();
+    }
+}
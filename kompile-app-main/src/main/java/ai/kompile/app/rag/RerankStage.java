@@ -0,0 +1,197 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.app.rag;
+
+import ai.kompile.app.config.RagProperties;
+import ai.kompile.core.retrievers.Reranker;
+import ai.kompile.core.retrievers.RetrievedDoc;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Optional stage between fusion and context packing: scores the fused candidates against the query with
+ * the application's {@link Reranker} and keeps the best {@code app.rag.rerank.top-n}.
+ * <p>
+ * Candidates whose (query, chunk) score is cached are not scored again; the rest are scored in batches on
+ * the retrieval pool. Reranking is bounded by {@code app.rag.rerank.timeout}: when the budget runs out, or
+ * the reranker fails, the query continues with the fused order. Batches finished before the deadline stay
+ * in the cache, so a repeated query gets faster.
+ */
+@Component
+public class RerankStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(RerankStage.class);
+
+    private final RagProperties ragProperties;
+    private final ObjectProvider<Reranker> rerankerProvider;
+    private final ExecutorService executor;
+    private final Map<String, Float> scoreCache;
+    private final Counter applied;
+    private final Counter fallbacks;
+    private final Timer latency;
+
+    public RerankStage(RagProperties ragProperties,
+                       ObjectProvider<Reranker> rerankerProvider,
+                       @Qualifier("ragRetrievalExecutor") ExecutorService executor,
+                       ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.ragProperties = ragProperties;
+        this.rerankerProvider = rerankerProvider;
+        this.executor = executor;
+        int maxEntries = Math.max(1, ragProperties.getRerank().getCacheSize());
+        this.scoreCache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Float> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        this.applied = Counter.builder("kompile.rag.rerank").tag("result", "applied").register(registry);
+        this.fallbacks = Counter.builder("kompile.rag.rerank").tag("result", "fallback").register(registry);
+        this.latency = Timer.builder("kompile.rag.rerank.latency")
+                .description("Time spent reranking fused candidates")
+                .register(registry);
+    }
+
+    /**
+     * Whether reranking is enabled and a Reranker is available, i.e. whether {@link #rerank} changes anything.
+     */
+    public boolean isActive() {
+        return ragProperties.getRerank().isEnabled() && rerankerProvider.getIfAvailable() != null;
+    }
+
+    public List<RetrievedDoc> rerank(String query, List<RetrievedDoc> candidates) {
+        RagProperties.Rerank config = ragProperties.getRerank();
+        Reranker reranker = config.isEnabled() ? rerankerProvider.getIfAvailable() : null;
+        if (reranker == null || candidates.isEmpty()) {
+            return candidates;
+        }
+        long start = System.nanoTime();
+        String[] keys = candidates.stream().map(doc -> cacheKey(query, doc)).toArray(String[]::new);
+        float[] scores = new float[candidates.size()];
+        List<Integer> missing = new ArrayList<>();
+        synchronized (scoreCache) {
+            for (int i = 0; i < keys.length; i++) {
+                Float cached = scoreCache.get(keys[i]);
+                if (cached != null) {
+                    scores[i] = cached;
+                } else {
+                    missing.add(i);
+                }
+            }
+        }
+
+        if (!missing.isEmpty() && !scoreMissing(reranker, query, candidates, keys, scores, missing, config)) {
+            fallbacks.increment();
+            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return candidates.subList(0, Math.min(candidates.size(), Math.max(0, config.getTopN())));
+        }
+
+        List<RetrievedDoc> reranked = IntStream.range(0, candidates.size()).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> scores[i]).reversed())
+                .limit(Math.max(0, config.getTopN()))
+                .map(i -> withRerankScore(candidates.get(i), scores[i], i + 1))
+                .collect(Collectors.toList());
+        applied.increment();
+        long elapsed = System.nanoTime() - start;
+        latency.record(elapsed, TimeUnit.NANOSECONDS);
+        logger.debug("Reranked {} candidate(s) ({} scored, {} cached) in {} ms.", candidates.size(), missing.size(),
+                candidates.size() - missing.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return reranked;
+    }
+
+    /**
+     * Scores the uncached candidates within the latency budget. Returns false if the budget ran out or
+     * scoring failed.
+     */
+    private boolean scoreMissing(Reranker reranker, String query, List<RetrievedDoc> candidates, String[] keys,
+                                 float[] scores, List<Integer> missing, RagProperties.Rerank config) {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        int batchSize = Math.max(1, config.getBatchSize());
+        CompletableFuture<Void> scoring;
+        try {
+            scoring = CompletableFuture.runAsync(() -> {
+                for (int from = 0; from < missing.size() && !cancelled.get(); from += batchSize) {
+                    List<Integer> batch = missing.subList(from, Math.min(from + batchSize, missing.size()));
+                    float[] batchScores = reranker.score(query,
+                            batch.stream().map(i -> candidates.get(i).getContent()).collect(Collectors.toList()));
+                    synchronized (scoreCache) {
+                        for (int b = 0; b < batch.size(); b++) {
+                            scores[batch.get(b)] = batchScores[b];
+                            scoreCache.put(keys[batch.get(b)], batchScores[b]);
+                        }
+                    }
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Reranking skipped for query [{}]: retrieval pool is saturated. Using fused order.", query);
+            return false;
+        }
+        try {
+            scoring.get(config.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            logger.warn("Reranking {} candidate(s) exceeded {} for query [{}]. Using fused order.",
+                    missing.size(), config.getTimeout(), query);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.error("Reranking failed for query [{}]: {}. Using fused order.", query, cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while reranking for query [{}]. Using fused order.", query);
+        } finally {
+            cancelled.set(true);
+        }
+        return false;
+    }
+
+    private static String cacheKey(String query, RetrievedDoc doc) {
+        return query.trim() + '\u0000' + HybridFusion.chunkKey(doc.getContent());
+    }
+
+    private static RetrievedDoc withRerankScore(RetrievedDoc doc, float score, int fusedRank) {
+        Map<String, Object> metadata = new HashMap<>();
+        if (doc.getMetadata() != null) {
+            metadata.putAll(doc.getMetadata());
+        }
+        metadata.put("fused_rank", fusedRank);
+        metadata.put("rerank_score", score);
+        return new RetrievedDoc(doc.getId(), doc.getContent(), score, metadata);
+    }
+}
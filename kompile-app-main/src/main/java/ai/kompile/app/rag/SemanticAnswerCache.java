@@ -0,0 +1,211 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.app.rag;
+
+import ai.kompile.app.config.RagProperties;
+import ai.kompile.core.indexers.IndexGeneration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Caches final answers by query meaning. A new query is embedded and compared (cosine) against the
+ * queries answered before; the closest one above {@code app.rag.answer-cache.similarity-threshold} is a
+ * candidate. The caller still runs retrieval and only reuses the answer if the packed context has the same
+ * fingerprint as when the answer was produced, so a paraphrase that retrieves different evidence is
+ * answered afresh.
+ * <p>
+ * Entries expire after the TTL and are dropped as soon as the index generation changes. The index is a
+ * plain list scanned linearly, which is fast enough for the few thousand entries this is meant to hold.
+ */
+@Component
+public class SemanticAnswerCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SemanticAnswerCache.class);
+
+    private final RagProperties ragProperties;
+    private final ObjectProvider<EmbeddingModel> embeddingModelProvider;
+    private final IndexGeneration indexGeneration;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Counter hits;
+    private final Counter misses;
+    private long entriesGeneration;
+
+    /**
+     * A cache probe: the query vector (to store the answer under later) and the best matching entry, if any.
+     */
+    public record Lookup(float[] vector, Entry match) {
+    }
+
+    public record Entry(String query, float[] vector, boolean toolCalling, String contextFingerprint,
+                        String answer, long expiresAtNanos) {
+    }
+
+    public SemanticAnswerCache(RagProperties ragProperties,
+                               ObjectProvider<EmbeddingModel> embeddingModelProvider,
+                               IndexGeneration indexGeneration,
+                               ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.ragProperties = ragProperties;
+        this.embeddingModelProvider = embeddingModelProvider;
+        this.indexGeneration = indexGeneration;
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        this.hits = Counter.builder("kompile.rag.answer.cache").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("kompile.rag.answer.cache").tag("result", "miss").register(registry);
+        Gauge.builder("kompile.rag.answer.cache.size", this, SemanticAnswerCache::size).register(registry);
+    }
+
+    public boolean isEnabled() {
+        return ragProperties.getAnswerCache().isEnabled() && embeddingModelProvider.getIfAvailable() != null;
+    }
+
+    /**
+     * Embeds the query and finds the most similar live entry. Returns null when the cache is disabled or the
+     * query cannot be embedded.
+     */
+    public Lookup lookup(String query, boolean toolCalling) {
+        if (!isEnabled()) {
+            return null;
+        }
+        float[] vector;
+        try {
+            vector = normalize(embeddingModelProvider.getObject().embed(query));
+        } catch (RuntimeException e) {
+            logger.warn("Answer cache skipped: could not embed query [{}]: {}", query, e.getMessage());
+            return null;
+        }
+        RagProperties.AnswerCache config = ragProperties.getAnswerCache();
+        long now = System.nanoTime();
+        Entry best = null;
+        double bestSimilarity = config.getSimilarityThreshold();
+        synchronized (entries) {
+            evictStale(now);
+            for (Entry entry : entries) {
+                if (entry.toolCalling() != toolCalling || entry.vector().length != vector.length) {
+                    continue;
+                }
+                double similarity = dot(entry.vector(), vector);
+                if (similarity >= bestSimilarity) {
+                    best = entry;
+                    bestSimilarity = similarity;
+                }
+            }
+        }
+        if (best != null) {
+            logger.debug("Answer cache candidate for [{}]: [{}] (cosine {}).", query, best.query(), bestSimilarity);
+        }
+        return new Lookup(vector, best);
+    }
+
+    /**
+     * Returns the cached answer if the probe found an entry whose context fingerprint matches, counting the
+     * hit or miss.
+     */
+    public String answerFor(Lookup lookup, String contextFingerprint) {
+        if (lookup == null) {
+            return null;
+        }
+        if (lookup.match() != null && lookup.match().contextFingerprint().equals(contextFingerprint)) {
+            hits.increment();
+            return lookup.match().answer();
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(Lookup lookup, String query, boolean toolCalling, String contextFingerprint, String answer) {
+        if (lookup == null || answer == null || answer.isBlank() || answer.startsWith("Error:")) {
+            return;
+        }
+        RagProperties.AnswerCache config = ragProperties.getAnswerCache();
+        long now = System.nanoTime();
+        synchronized (entries) {
+            evictStale(now);
+            // A candidate that failed the fingerprint check is replaced rather than kept alongside.
+            if (lookup.match() != null) {
+                entries.remove(lookup.match());
+            }
+            entries.add(new Entry(query, lookup.vector(), toolCalling, contextFingerprint, answer,
+                    now + config.getTtl().toNanos()));
+            while (entries.size() > Math.max(1, config.getMaxEntries())) {
+                entries.remove(0);
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Identity of the packed context: a digest over the chunk keys of the snippets, in order.
+     */
+    public static String fingerprint(List<String> snippets) {
+        StringBuilder keys = new StringBuilder();
+        for (String snippet : snippets) {
+            keys.append(HybridFusion.chunkKey(snippet)).append('\n');
+        }
+        return DigestUtils.md5DigestAsHex(keys.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void evictStale(long now) {
+        long generation = indexGeneration.current();
+        if (generation != entriesGeneration) {
+            if (!entries.isEmpty()) {
+                logger.info("Index changed (generation {} -> {}); dropping {} cached answer(s).",
+                        entriesGeneration, generation, entries.size());
+            }
+            entries.clear();
+            entriesGeneration = generation;
+            return;
+        }
+        entries.removeIf(entry -> now - entry.expiresAtNanos() >= 0);
+    }
+
+    static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    static float[] normalize(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        double norm = Math.sqrt(sum);
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = norm > 0 ? (float) (vector[i] / norm) : 0f;
+        }
+        return normalized;
+    }
+}
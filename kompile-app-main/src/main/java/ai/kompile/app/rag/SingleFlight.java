@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.app.rag;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with the same key: the first caller runs the computation, callers that arrive
+ * while it is in flight wait for and share its result (or its exception). Nothing is cached; once the
+ * computation finishes the next call with that key runs it again.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Result of {@link #execute}: the value and whether this caller shared another caller's computation.
+     */
+    public record Result<V>(V value, boolean shared) {
+    }
+
+    public Result<V> execute(K key, Supplier<V> computation) throws InterruptedException {
+        CompletableFuture<V> leader = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            try {
+                return new Result<>(existing.get(), true);
+            } catch (ExecutionException e) {
+                throw propagate(e.getCause());
+            }
+        }
+        try {
+            V value = computation.get();
+            leader.complete(value);
+            return new Result<>(value, false);
+        } catch (RuntimeException | Error e) {
+            leader.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, leader);
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private static RuntimeException propagate(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.app.rag;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request accumulator of stage durations, filled from the request thread and the retrieval pool and
+ * returned as the optional timing breakdown of a RAG answer.
+ */
+final class StageTimings {
+
+    private final Map<String, Long> nanos = new LinkedHashMap<>();
+
+    synchronized void add(String stage, long elapsedNanos) {
+        nanos.merge(stage, elapsedNanos, Long::sum);
+    }
+
+    synchronized Map<String, Long> toMillis() {
+        Map<String, Long> millis = new LinkedHashMap<>();
+        nanos.forEach((stage, value) -> millis.put(stage, TimeUnit.NANOSECONDS.toMillis(value)));
+        return millis;
+    }
+}
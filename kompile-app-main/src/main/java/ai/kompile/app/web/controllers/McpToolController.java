@@ -24,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -34,6 +35,9 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @RestController
@@ -46,13 +50,16 @@ public class McpToolController {
 
     private final RagToolImpl ragToolImpl;
     private final FilesystemToolImpl filesystemToolImpl;
+    private final Executor requestExecutor;
 
     @Autowired
     public McpToolController(ApplicationContext applicationContext,
                              ObjectMapper objectMapper,
                              RagToolImpl ragToolImpl,
-                             FilesystemToolImpl filesystemToolImpl) {
+                             FilesystemToolImpl filesystemToolImpl,
+                             @Qualifier("ragRequestExecutor") Executor requestExecutor) {
         this.applicationContext = applicationContext;
+        this.requestExecutor = requestExecutor;
         this.objectMapper = objectMapper;
         this.ragToolImpl = ragToolImpl;
         this.filesystemToolImpl = filesystemToolImpl;
@@ -118,12 +125,22 @@ public class McpToolController {
     }
 
     @PostMapping("/invoke-direct")
-    public ResponseEntity<?> invokeToolDirectly(@RequestBody FrontendToolCallRequest request) {
+    public CompletableFuture<ResponseEntity<?>> invokeToolDirectly(@RequestBody FrontendToolCallRequest request) {
         logger.info("McpToolController received direct tool invocation request: {}", request);
         if (request.toolName() == null || request.toolName().trim().isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "toolName cannot be empty."));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "toolName cannot be empty.")));
         }
+        // rag_query holds a thread for the whole LLM round trip, so tools run on the request executor.
+        try {
+            return CompletableFuture.supplyAsync(() -> invokeTool(request), requestExecutor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Rejected direct invocation of tool '{}': request executor is saturated.", request.toolName());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Too many tool invocations in progress. Please retry later.")));
+        }
+    }
 
+    private ResponseEntity<?> invokeTool(FrontendToolCallRequest request) {
         try {
             Object result = null;
             switch (request.toolName()) {
@@ -16,20 +16,41 @@
 
 package ai.kompile.app.web.controllers; // New package for controllers in the main app
 
+import ai.kompile.app.config.RagProperties;
+import ai.kompile.core.llm.LlmOverloadedException;
+import ai.kompile.core.rag.RagAnswer;
+import ai.kompile.core.rag.RagBatchResult;
 import ai.kompile.core.rag.RagQuery;    // Import DTO from kompile-app-core
 import ai.kompile.core.rag.RagService;    // Import interface from kompile-app-core
+import ai.kompile.core.rag.RagStreamEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/rag")
@@ -37,38 +58,160 @@ public class RagController {
 
     private static final Logger logger = LoggerFactory.getLogger(RagController.class);
     private final RagService ragService; // Injecting the interface
+    private final Executor requestExecutor;
+    private final RagProperties ragProperties;
 
     @Autowired // Optional on constructors from Spring 4.3+ if only one constructor
-    public RagController( RagService ragService) {
+    public RagController( RagService ragService, @Qualifier("ragRequestExecutor") Executor requestExecutor,
+                          RagProperties ragProperties) {
         this.ragService = ragService; // Spring will inject RagServiceImpl from this module
+        this.requestExecutor = requestExecutor;
+        this.ragProperties = ragProperties;
     }
 
+    /**
+     * Answers asynchronously: the servlet thread is released while retrieval and the LLM call run on the
+     * request executor (virtual threads when spring.threads.virtual.enabled=true).
+     */
     @PostMapping("/query")
-    public ResponseEntity<?> queryRAG(@RequestBody RagQuery query) {
+    public CompletableFuture<ResponseEntity<?>> queryRAG(@RequestBody RagQuery query) {
         if (query == null || query.getQuery() == null || query.getQuery().trim().isEmpty()) {
             logger.warn("Received RAG query with empty or null query string.");
-            return ResponseEntity.badRequest().body(Map.of("error", "Query cannot be empty."));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Query cannot be empty.")));
         }
+        logger.info("RagController received RAG query: '{}', useToolCalling: {}", query.getQuery(), query.isUseToolCalling());
         try {
-            logger.info("RagController received RAG query: '{}', useToolCalling: {}", query.getQuery(), query.isUseToolCalling());
-            String answer = ragService.answerQuery(query); // Calls the interface method
+            return ragService.answerAsync(query, requestExecutor) // Calls the interface method
+                    .<ResponseEntity<?>>thenApply(ragAnswer -> toResponse(query, ragAnswer))
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        logger.error("Unexpected error processing RAG query [{}] in RagController: {}", query.getQuery(), cause.getMessage(), cause);
+                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                                .body(Map.of("error", "Failed to process RAG query due to an unexpected internal error."));
+                    });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Rejected RAG query [{}]: request executor is saturated.", query.getQuery());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Too many RAG queries in progress. Please retry later.")));
+        }
+    }
 
-            if (answer == null) { // Handle case where service might return null
-                logger.error("RagService returned a null answer for query: {}", query.getQuery());
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("query", query.getQuery(), "error", "Received null answer from RAG service."));
-            }
+    private ResponseEntity<?> toResponse(RagQuery query, RagAnswer ragAnswer) {
+        String answer = ragAnswer.answer();
+
+        if (answer == null) { // Handle case where service might return null
+            logger.error("RagService returned a null answer for query: {}", query.getQuery());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("query", query.getQuery(), "error", "Received null answer from RAG service."));
+        }
+
+        if (answer.startsWith(LlmOverloadedException.ERROR_MESSAGE)) {
+            logger.warn("Language model overloaded; failing query fast: {}", query.getQuery());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("query", query.getQuery(), "error", answer));
+        }
+
+        if (answer.startsWith("Error:")) {
+            logger.warn("RagService indicated an error for query [{}]: {}", query.getQuery(), answer);
+            // Consider if all errors from service should be 500, or if some are user errors (4xx)
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("query", query.getQuery(), "error", answer));
+        }
+        logger.info("RagController successfully processed query: {}", query.getQuery());
+        if (query.isIncludeTimings()) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("query", query.getQuery());
+            body.put("answer", answer);
+            body.put("timings", ragAnswer.timingsMs());
+            return ResponseEntity.ok(body);
+        }
+        return ResponseEntity.ok(Map.of("query", query.getQuery(), "answer", answer));
+    }
 
-            if (answer.startsWith("Error:")) {
-                logger.warn("RagService indicated an error for query [{}]: {}", query.getQuery(), answer);
-                // Consider if all errors from service should be 500, or if some are user errors (4xx)
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("query", query.getQuery(), "error", answer));
+    /**
+     * Answers a JSON array of queries and streams one JSON object per line (NDJSON) as each answer completes,
+     * so results arrive out of order: {@code index} is the query's position in the request. Each line carries
+     * the HTTP status the query would have had on its own ({@code 200}, {@code 400}, {@code 503} or {@code 500}).
+     * <p>
+     * Batches can run for hours, so the response has its own timeout ({@code app.rag.batch.timeout}) instead of
+     * {@code spring.mvc.async.request-timeout}.
+     */
+    @PostMapping(value = "/query/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> queryBatch(@RequestBody List<RagQuery> queries) {
+        RagProperties.Batch batch = ragProperties.getBatch();
+        if (queries == null || queries.isEmpty()) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_NDJSON)
+                    .body(ndjson(Flux.just(Map.of("error", "Batch cannot be empty.")), batch.getTimeout()));
+        }
+        if (queries.size() > batch.getMaxQueries()) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_NDJSON).body(ndjson(Flux.just(
+                    Map.of("error", "Batch of " + queries.size() + " queries exceeds the limit of " + batch.getMaxQueries() + ".")),
+                    batch.getTimeout()));
+        }
+        logger.info("RagController received batch of {} RAG queries.", queries.size());
+        Flux<Map<String, Object>> lines = ragService
+                .answerBatch(queries, batch.getParallelism(), requestExecutor)
+                .map(this::toBatchLine);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(ndjson(lines, batch.getTimeout()));
+    }
+
+    /**
+     * Writes each element as soon as it is emitted, one JSON object per line. A zero timeout means none; when the
+     * timeout expires or the client goes away, the remaining queries are cancelled.
+     */
+    private static ResponseBodyEmitter ndjson(Flux<Map<String, Object>> lines, Duration timeout) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeout == null || timeout.isZero() ? -1L : timeout.toMillis());
+        Disposable subscription = lines.subscribe(line -> {
+            try {
+                emitter.send(line, MediaType.APPLICATION_JSON);
+                emitter.send("\n", MediaType.TEXT_PLAIN);
+            } catch (IOException e) {
+                throw Exceptions.propagate(e);
             }
-            logger.info("RagController successfully processed query: {}", query.getQuery());
-            return ResponseEntity.ok(Map.of("query", query.getQuery(), "answer", answer));
-        } catch (Exception e) {
-            logger.error("Unexpected error processing RAG query [{}] in RagController: {}", query.getQuery(), e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Failed to process RAG query due to an unexpected internal error."));
+        }, emitter::completeWithError, emitter::complete);
+        emitter.onTimeout(() -> {
+            logger.warn("Batch response timed out after {}; cancelling the remaining queries.", timeout);
+            subscription.dispose();
+        });
+        emitter.onError(e -> subscription.dispose());
+        return emitter;
+    }
+
+    private Map<String, Object> toBatchLine(RagBatchResult result) {
+        String answer = result.answer().answer();
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("index", result.index());
+        line.put("query", result.query() != null ? result.query().getQuery() : null);
+        if (answer == null || answer.startsWith("Error:")) {
+            HttpStatus status = answer == null ? HttpStatus.INTERNAL_SERVER_ERROR
+                    : answer.startsWith(LlmOverloadedException.ERROR_MESSAGE) ? HttpStatus.SERVICE_UNAVAILABLE
+                    : result.query() == null || result.query().getQuery() == null || result.query().getQuery().isBlank() ? HttpStatus.BAD_REQUEST
+                    : HttpStatus.INTERNAL_SERVER_ERROR;
+            line.put("status", status.value());
+            line.put("error", answer != null ? answer : "Received null answer from RAG service.");
+        } else {
+            line.put("status", HttpStatus.OK.value());
+            line.put("answer", answer);
         }
+        if (result.query() != null && result.query().isIncludeTimings()) {
+            line.put("timings", result.answer().timingsMs());
+        }
+        return line;
+    }
+
+    /**
+     * Streams the answer as Server-Sent Events: one {@code metadata} event with retrieval details, then
+     * {@code token} events as the language model produces text, then {@code done} (or {@code error}).
+     */
+    @PostMapping(value = "/query/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamRAG(@RequestBody RagQuery query) {
+        logger.info("RagController received streaming RAG query: '{}'", query != null ? query.getQuery() : null);
+        Flux<RagStreamEvent> events = query == null
+                ? Flux.just(RagStreamEvent.error("Error: Query cannot be empty."))
+                : ragService.streamAnswer(query);
+        return events.map(event -> ServerSentEvent.builder(event.data()).event(event.event()).build());
+    }
+
+    // GET variant for browser EventSource clients, which cannot send a request body.
+    @GetMapping(value = "/query/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamRAG(@RequestParam("query") String query) {
+        return streamRAG(new RagQuery(query, false));
     }
-}
\ No newline at end of file
+}
@@ -28,6 +28,10 @@ import org.springframework.web.bind.annotation.*;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/retriever")
@@ -35,51 +39,63 @@ public class RetrieverController {
 
     private static final Logger logger = LoggerFactory.getLogger(RetrieverController.class);
     private final DocumentRetriever documentRetriever;
+    private final Executor requestExecutor;
 
     @Autowired
-    public RetrieverController(DocumentRetriever documentRetriever) {
+    public RetrieverController(DocumentRetriever documentRetriever,
+                               @Qualifier("ragRequestExecutor") Executor requestExecutor) {
         // We inject the specific DocumentRetriever if multiple exist,
         // or just DocumentRetriever if AnseriniDocumentRetrieverImpl is the only one or @Primary
         this.documentRetriever = documentRetriever;
+        this.requestExecutor = requestExecutor;
         logger.info("RetrieverController initialized with DocumentRetriever: {}", documentRetriever.getClass().getSimpleName());
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> searchDocuments(
+    public CompletableFuture<ResponseEntity<?>> searchDocuments(
             @RequestParam String query,
             @RequestParam(defaultValue = "5") int maxResults) { // Changed default to 5
 
         if (query == null || query.trim().isEmpty()) {
             logger.warn("Received direct search request with empty or null query.");
-            return ResponseEntity.badRequest().body(Map.of("error", "Query cannot be empty."));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Query cannot be empty.")));
         }
         if (maxResults <= 0 || maxResults > 50) { // Added upper bound for direct searches
             logger.warn("Received direct search request with invalid maxResults: {}", maxResults);
-            return ResponseEntity.badRequest().body(Map.of("error", "maxResults must be between 1 and 50."));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "maxResults must be between 1 and 50.")));
         }
 
+        logger.info("RetrieverController received direct search: '{}', maxResults: {}", query, maxResults);
         try {
-            logger.info("RetrieverController received direct search: '{}', maxResults: {}", query, maxResults);
-            List<String> results = documentRetriever.retrieve(query, maxResults);
-
-            if (results == null) {
-                logger.error("DocumentRetriever returned null for query [{}]", query);
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body(Map.of("query", query, "error", "Retriever returned null results."));
-            }
+            return documentRetriever.retrieveAsync(query, maxResults, requestExecutor)
+                    .<ResponseEntity<?>>thenApply(results -> toResponse(query, maxResults, results))
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        logger.error("Error during direct document retrieval via controller for query [{}]: {}", query, cause.getMessage(), cause);
+                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                                .body(Map.of("error", "Direct document retrieval failed: " + cause.getMessage()));
+                    });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Rejected direct search [{}]: request executor is saturated.", query);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Too many requests in progress. Please retry later.")));
+        }
+    }
 
-            if (!results.isEmpty() && results.get(0) != null && results.get(0).startsWith("Error:")) {
-                logger.warn("DocumentRetriever indicated an error for query [{}]: {}", query, results.get(0));
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body(Map.of("query", query, "error", results.get(0)));
-            }
+    private ResponseEntity<?> toResponse(String query, int maxResults, List<String> results) {
+        if (results == null) {
+            logger.error("DocumentRetriever returned null for query [{}]", query);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("query", query, "error", "Retriever returned null results."));
+        }
 
-            logger.info("RetrieverController successfully processed direct search for query: {}", query);
-            return ResponseEntity.ok(Map.of("query", query, "maxResults", maxResults, "hits", results));
-        } catch (Exception e) {
-            logger.error("Error during direct document retrieval via controller for query [{}]: {}", query, e.getMessage(), e);
+        if (!results.isEmpty() && results.get(0) != null && results.get(0).startsWith("Error:")) {
+            logger.warn("DocumentRetriever indicated an error for query [{}]: {}", query, results.get(0));
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Direct document retrieval failed: " + e.getMessage()));
+                    .body(Map.of("query", query, "error", results.get(0)));
         }
+
+        logger.info("RetrieverController successfully processed direct search for query: {}", query);
+        return ResponseEntity.ok(Map.of("query", query, "maxResults", maxResults, "hits", results));
     }
-}
\ No newline at end of file
+}
@@ -17,19 +17,22 @@
 package ai.kompile.llm.openai; // Your package for this specific implementation
 
 import ai.kompile.core.llm.LanguageModel; // From your core abstractions module
+import ai.kompile.core.llm.PromptCacheMetrics;
+import ai.kompile.core.llm.PromptLayout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.messages.UserMessage; // Correct UserMessage import
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.chat.prompt.SystemPromptTemplate;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service("openAiLanguageModel")
 @ConditionalOnProperty(name = "spring.ai.openai.api-key")
@@ -37,34 +40,30 @@ public class OpenAiLanguageModelImpl implements LanguageModel {
 
     private static final Logger logger = LoggerFactory.getLogger(OpenAiLanguageModelImpl.class);
     private final ChatClient chatClient;
+    private final String modelName;
 
-    public OpenAiLanguageModelImpl(ChatClient.Builder chatClientBuilder) {
+    public OpenAiLanguageModelImpl(ChatClient.Builder chatClientBuilder,
+                                   @Value("${spring.ai.openai.chat.options.model:gpt-4o-mini}") String modelName) {
         this.chatClient = chatClientBuilder.build();
+        this.modelName = modelName;
         logger.info("OpenAiLanguageModelImpl initialized with ChatClient: {}", this.chatClient.getClass().getName());
     }
 
+    @Override
+    public String getModelName() {
+        return modelName;
+    }
+
     @Override
     public String generateResponse(String userQuery, List<String> context) {
         logger.debug("OpenAI generating simple response for query: {}", userQuery);
-        String systemMessageContent = """
-                You are a helpful AI assistant. Answer the user's query based on the provided context.
-                If the context does not contain the answer, say that you don't know.
-                Context:
-                {context}
-                """;
-        SystemPromptTemplate systemPromptTemplate = new SystemPromptTemplate(systemMessageContent);
-        String contextString = (context == null) ? "" : context.stream().collect(Collectors.joining("\n---\n"));
-
-        // Using Spring AI's Prompt class
-        Prompt prompt = new Prompt(List.of(
-                systemPromptTemplate.createMessage(Map.of("context", contextString)),
-                new UserMessage(userQuery) // Spring AI's UserMessage
-        ));
+        Prompt prompt = contextPrompt(userQuery, context);
 
         // The fluent API call
         ChatResponse response = chatClient.prompt(prompt)
                 .call()
                 .chatResponse();
+        recordPromptUsage(response);
 
         if (response != null && response.getResult() != null && response.getResult().getOutput() != null) {
             return response.getResult().getOutput().getText();
@@ -81,11 +80,7 @@ public class OpenAiLanguageModelImpl implements LanguageModel {
                 Answer the user's query based on the provided context or by using tools if necessary.
                 If the context does not contain the answer, consider using a tool.
                 Available tools are for RAG queries (rag_query), listing files (list_files), and reading files (read_file).
-                Context:
-                {context}
                 """;
-        SystemPromptTemplate systemPromptTemplate = new SystemPromptTemplate(systemMessageContent);
-        String contextString = (context == null) ? "" : context.stream().collect(Collectors.joining("\n---\n"));
 
         // These tool names must match the 'name' attribute of your @Tool annotated methods
         String[] toolNamesArray = {"rag_query", "list_files", "read_file"};
@@ -94,7 +89,7 @@ public class OpenAiLanguageModelImpl implements LanguageModel {
         // Correct fluent API chain for Spring AI 1.0.0-M8+
         ChatResponse response = chatClient.prompt()
                 .messages(
-                        systemPromptTemplate.createMessage(Map.of("context", contextString)),
+                        PromptLayout.systemMessage(systemMessageContent, context),
                         new UserMessage(userQuery) // Spring AI's UserMessage
                 )
                 .toolNames(toolNamesArray) // Pass as varargs or an array
@@ -102,6 +97,39 @@ public class OpenAiLanguageModelImpl implements LanguageModel {
                 .chatResponse();
 
         logger.debug("OpenAI LLM response (may include tool call): {}", response);
+        recordPromptUsage(response);
         return response;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Flux<String> streamResponse(String userQuery, List<String> context) {
+        logger.debug("OpenAI streaming response for query: {}", userQuery);
+        return chatClient.prompt(contextPrompt(userQuery, context))
+                .stream()
+                .content();
+    }
+
+    // OpenAI caches prompt prefixes of 1024+ tokens automatically and reports the hits as cached_tokens.
+    private static void recordPromptUsage(ChatResponse response) {
+        Usage usage = response != null && response.getMetadata() != null ? response.getMetadata().getUsage() : null;
+        if (usage == null) {
+            return;
+        }
+        Integer cachedTokens = usage.getNativeUsage() instanceof OpenAiApi.Usage nativeUsage && nativeUsage.promptTokensDetails() != null
+                ? nativeUsage.promptTokensDetails().cachedTokens()
+                : null;
+        PromptCacheMetrics.record(OpenAiLanguageModelImpl.class.getSimpleName(), usage.getPromptTokens(), cachedTokens);
+    }
+
+    private Prompt contextPrompt(String userQuery, List<String> context) {
+        String systemMessageContent = """
+                You are a helpful AI assistant. Answer the user's query based on the provided context.
+                If the context does not contain the answer, say that you don't know.
+                """;
+
+        return new Prompt(List.of(
+                PromptLayout.systemMessage(systemMessageContent, context),
+                new UserMessage(userQuery)
+        ));
+    }
+}
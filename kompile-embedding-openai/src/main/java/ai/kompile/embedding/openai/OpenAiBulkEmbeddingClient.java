@@ -0,0 +1,377 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.embedding.openai;
+
+import ai.kompile.core.embeddings.BulkEmbedder;
+import ai.kompile.core.embeddings.config.ProviderSettings;
+import ai.kompile.embedding.openai.config.OpenAiBulkEmbeddingProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.openai.OpenAiEmbeddingModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk embedding against the OpenAI {@code /v1/embeddings} endpoint for large ingests.
+ * <p>
+ * Inputs are split into requests by estimated token count (cl100k_base, the tokenizer of the OpenAI
+ * embedding models) and item count, sent with bounded concurrency, and paced by two {@link TokenBucket}s
+ * (tokens and requests per minute) that follow the {@code x-ratelimit-*} response headers. Throttled (429)
+ * and failed (5xx) requests are retried with backoff, honouring Retry-After. Results come back in input order.
+ * <p>
+ * As a {@link BulkEmbedder} it sits below the embedding cache of the Spring AI OpenAI EmbeddingModel, so vector
+ * store ingest goes through it; single-text calls such as queries keep using the Spring AI client.
+ */
+@Component
+@ConditionalOnProperty(name = "app.embedding.openai.bulk.enabled", havingValue = "true")
+public class OpenAiBulkEmbeddingClient implements BulkEmbedder, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenAiBulkEmbeddingClient.class);
+
+    private static final String DEFAULT_BASE_URL = "https://api.openai.com";
+    private static final String DEFAULT_MODEL = "text-embedding-ada-002";
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private final OpenAiBulkEmbeddingProperties properties;
+    private final URI endpoint;
+    private final String apiKey;
+    private final String model;
+    private final Integer dimensions;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+    private final TokenBucket tokenBucket;
+    private final TokenBucket requestBucket;
+    private final ExecutorService executor;
+
+    private record Batch(int[] indices, long tokens) {
+    }
+
+    @Autowired
+    public OpenAiBulkEmbeddingClient(OpenAiBulkEmbeddingProperties properties, Environment environment) {
+        this(properties,
+                ProviderSettings.firstNonBlank(properties.getBaseUrl(), environment.getProperty("spring.ai.openai.base-url"), DEFAULT_BASE_URL),
+                ProviderSettings.firstNonBlank(properties.getApiKey(), environment.getProperty("spring.ai.openai.api-key")),
+                ProviderSettings.firstNonBlank(properties.getModel(), environment.getProperty("spring.ai.openai.embedding.options.model"), DEFAULT_MODEL),
+                defaultDimensions(properties, environment));
+    }
+
+    public OpenAiBulkEmbeddingClient(OpenAiBulkEmbeddingProperties properties, String baseUrl, String apiKey, String model) {
+        this(properties, baseUrl, apiKey, model, properties.getDimensions());
+    }
+
+    /**
+     * @param dimensions requested vector size, or null for the model's default
+     */
+    public OpenAiBulkEmbeddingClient(OpenAiBulkEmbeddingProperties properties, String baseUrl, String apiKey, String model,
+                                     Integer dimensions) {
+        this.properties = properties;
+        this.dimensions = dimensions;
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.endpoint = URI.create(base + "/v1/embeddings");
+        this.apiKey = apiKey;
+        this.model = model;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        this.tokenBucket = new TokenBucket(properties.getTokensPerMinute());
+        this.requestBucket = new TokenBucket(properties.getRequestsPerMinute());
+        int concurrency = Math.max(1, properties.getConcurrency());
+        AtomicInteger workerCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "openai-bulk-embedding-" + workerCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        logger.info("OpenAiBulkEmbeddingClient initialized for model '{}' at {} (concurrency={}, maxItemsPerBatch={}, maxTokensPerBatch={}).",
+                model, endpoint, concurrency, properties.getMaxItemsPerBatch(), properties.getMaxTokensPerBatch());
+    }
+
+    @Override
+    public boolean supports(org.springframework.ai.embedding.EmbeddingModel model) {
+        return model instanceof OpenAiEmbeddingModel;
+    }
+
+    /**
+     * Embeds all texts and returns one vector per input, in input order. Null or blank inputs are not
+     * sent and get a null vector.
+     */
+    @Override
+    public List<float[]> embedAll(List<String> texts) {
+        float[][] vectors = new float[texts.size()][];
+        List<Batch> batches = planBatches(texts);
+        if (batches.isEmpty()) {
+            return Arrays.asList(vectors);
+        }
+        logger.debug("Embedding {} text(s) in {} request(s).", texts.size(), batches.size());
+
+        List<Future<?>> futures = new ArrayList<>(batches.size());
+        for (Batch batch : batches) {
+            futures.add(executor.submit(() -> {
+                List<float[]> batchVectors = send(batch, texts);
+                for (int i = 0; i < batch.indices().length; i++) {
+                    vectors[batch.indices()[i]] = batchVectors.get(i);
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for embedding batches", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Embedding batch failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return Arrays.asList(vectors);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private List<Batch> planBatches(List<String> texts) {
+        int maxItems = Math.max(1, Math.min(properties.getMaxItemsPerBatch(), 2048));
+        long maxTokens = Math.max(1, properties.getMaxTokensPerBatch());
+        List<Batch> batches = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        long currentTokens = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            if (text == null || text.isBlank()) {
+                continue;
+            }
+            long tokens = encoding.countTokens(text);
+            if (!current.isEmpty() && (current.size() >= maxItems || currentTokens + tokens > maxTokens)) {
+                batches.add(toBatch(current, currentTokens));
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(i);
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            batches.add(toBatch(current, currentTokens));
+        }
+        return batches;
+    }
+
+    private static Batch toBatch(List<Integer> indices, long tokens) {
+        return new Batch(indices.stream().mapToInt(Integer::intValue).toArray(), tokens);
+    }
+
+    private List<float[]> send(Batch batch, List<String> texts) throws InterruptedException, IOException {
+        String body = requestBody(batch, texts);
+        for (int attempt = 0; ; attempt++) {
+            tokenBucket.acquire(batch.tokens());
+            requestBucket.acquire(1);
+
+            HttpResponse<String> response;
+            try {
+                response = httpClient.send(request(body), HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                if (attempt >= properties.getMaxRetries()) {
+                    throw e;
+                }
+                Duration wait = backoff(attempt);
+                logger.warn("Embedding request for {} text(s) failed ({}). Retrying in {} ms.",
+                        batch.indices().length, e.getMessage(), wait.toMillis());
+                Thread.sleep(wait.toMillis());
+                continue;
+            }
+            observeRateLimits(response.headers());
+
+            int status = response.statusCode();
+            if (status == 200) {
+                return parseResponse(response.body(), batch.indices().length);
+            }
+            if ((status == 429 || status >= 500) && attempt < properties.getMaxRetries()) {
+                Duration wait = retryAfter(response.headers());
+                if (wait == null) {
+                    wait = backoff(attempt);
+                }
+                logger.warn("Embedding request for {} text(s) returned HTTP {}. Retrying in {} ms (attempt {}/{}).",
+                        batch.indices().length, status, wait.toMillis(), attempt + 1, properties.getMaxRetries());
+                if (status == 429) {
+                    // Throttling is account-wide, so hold back every worker, not just this one.
+                    tokenBucket.pause(wait);
+                    requestBucket.pause(wait);
+                } else {
+                    Thread.sleep(wait.toMillis());
+                }
+                continue;
+            }
+            String snippet = response.body() == null ? "" : response.body().substring(0, Math.min(response.body().length(), 500));
+            throw new IllegalStateException("OpenAI embedding request failed with HTTP " + status + ": " + snippet);
+        }
+    }
+
+    private String requestBody(Batch batch, List<String> texts) throws IOException {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("model", model);
+        root.put("encoding_format", "float");
+        if (dimensions != null) {
+            root.put("dimensions", dimensions);
+        }
+        ArrayNode input = root.putArray("input");
+        for (int index : batch.indices()) {
+            input.add(texts.get(index));
+        }
+        return objectMapper.writeValueAsString(root);
+    }
+
+    private HttpRequest request(String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(endpoint)
+                .timeout(properties.getRequestTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (apiKey != null && !apiKey.isBlank()) {
+            builder.header("Authorization", "Bearer " + apiKey);
+        }
+        return builder.build();
+    }
+
+    private List<float[]> parseResponse(String body, int expected) throws IOException {
+        JsonNode data = objectMapper.readTree(body).path("data");
+        float[][] vectors = new float[expected][];
+        for (JsonNode item : data) {
+            int index = item.path("index").asInt(-1);
+            if (index < 0 || index >= expected) {
+                throw new IllegalStateException("OpenAI embedding response contains out-of-range index " + index);
+            }
+            JsonNode values = item.path("embedding");
+            float[] vector = new float[values.size()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = (float) values.get(i).asDouble();
+            }
+            vectors[index] = vector;
+        }
+        for (int i = 0; i < expected; i++) {
+            if (vectors[i] == null) {
+                throw new IllegalStateException("OpenAI embedding response is missing the vector for input " + i);
+            }
+        }
+        return Arrays.asList(vectors);
+    }
+
+    private void observeRateLimits(HttpHeaders headers) {
+        tokenBucket.observe(longHeader(headers, "x-ratelimit-limit-tokens"),
+                longHeader(headers, "x-ratelimit-remaining-tokens"),
+                headers.firstValue("x-ratelimit-reset-tokens").map(OpenAiBulkEmbeddingClient::parseDuration).orElse(null));
+        requestBucket.observe(longHeader(headers, "x-ratelimit-limit-requests"),
+                longHeader(headers, "x-ratelimit-remaining-requests"),
+                headers.firstValue("x-ratelimit-reset-requests").map(OpenAiBulkEmbeddingClient::parseDuration).orElse(null));
+    }
+
+    private Duration backoff(int attempt) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long max = properties.getMaxBackoff().toMillis();
+        long ceiling = Math.min(max, initial << Math.min(attempt, 20));
+        // Jitter keeps concurrent workers from retrying in lockstep.
+        return Duration.ofMillis(ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1));
+    }
+
+    private static Duration retryAfter(HttpHeaders headers) {
+        Long millis = longHeader(headers, "retry-after-ms");
+        if (millis != null) {
+            return Duration.ofMillis(millis);
+        }
+        return headers.firstValue("retry-after").map(value -> {
+            try {
+                return Duration.ofMillis((long) (Double.parseDouble(value.trim()) * 1000));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }).orElse(null);
+    }
+
+    private static Long longHeader(HttpHeaders headers, String name) {
+        return headers.firstValue(name).map(value -> {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }).orElse(null);
+    }
+
+    /**
+     * Parses OpenAI's reset durations such as {@code 20ms}, {@code 1.5s} or {@code 6m0s}.
+     */
+    static Duration parseDuration(String value) {
+        Matcher matcher = DURATION_PART.matcher(value.trim());
+        double millis = 0;
+        boolean matched = false;
+        while (matcher.find()) {
+            matched = true;
+            double amount = Double.parseDouble(matcher.group(1));
+            millis += switch (matcher.group(2)) {
+                case "h" -> amount * 3_600_000;
+                case "m" -> amount * 60_000;
+                case "s" -> amount * 1_000;
+                default -> amount;
+            };
+        }
+        return matched ? Duration.ofMillis((long) Math.ceil(millis)) : null;
+    }
+
+    /**
+     * Falls back to the shared app.embedding.dimensions, so bulk-ingested vectors match the size of the
+     * query vectors produced through the decorated Spring AI model.
+     */
+    private static Integer defaultDimensions(OpenAiBulkEmbeddingProperties properties, Environment environment) {
+        if (properties.getDimensions() == null
+                && environment.getProperty("app.embedding.provider-dimensions", Boolean.class, true)) {
+            return environment.getProperty("app.embedding.dimensions", Integer.class);
+        }
+        return properties.getDimensions();
+    }
+}
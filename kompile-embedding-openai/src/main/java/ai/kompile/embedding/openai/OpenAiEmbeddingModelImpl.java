@@ -76,6 +76,7 @@ public class OpenAiEmbeddingModelImpl implements EmbeddingModel {
         logger.debug("Embedding {} text strings using OpenAI...", texts.size());
 
         // ASSUMPTION: springAiEmbeddingModel.embed(List<String>) returns List<float[]>
+        // With app.embedding.openai.bulk.enabled the Spring AI bean sends lists through OpenAiBulkEmbeddingClient.
         List<float[]> listOfFloatArrayEmbeddings = this.springAiEmbeddingModel.embed(texts);
 
         if (listOfFloatArrayEmbeddings == null) {
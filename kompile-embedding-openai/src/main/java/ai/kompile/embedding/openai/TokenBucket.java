@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.embedding.openai;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A per-minute token bucket that can be corrected from the provider's rate-limit headers.
+ * <p>
+ * The bucket starts from a configured budget. Each response's {@code x-ratelimit-limit-*} value replaces
+ * the capacity, {@code x-ratelimit-remaining-*} caps what we believe is left, and an exhausted budget (or a
+ * 429) blocks all callers until the advertised reset time.
+ */
+public class TokenBucket {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private long capacity;
+    private double available;
+    private double refillPerNano;
+    private long lastRefillNanos;
+    private long blockedUntilNanos;
+
+    public TokenBucket(long perMinute) {
+        this.capacity = Math.max(1, perMinute);
+        this.available = this.capacity;
+        this.refillPerNano = (double) this.capacity / NANOS_PER_MINUTE;
+        this.lastRefillNanos = System.nanoTime();
+        this.blockedUntilNanos = this.lastRefillNanos;
+    }
+
+    /**
+     * Blocks until {@code permits} are available and takes them. Requests larger than the whole
+     * capacity are clamped to it, so an oversized batch waits for a full bucket instead of forever.
+     */
+    public synchronized void acquire(long permits) throws InterruptedException {
+        while (true) {
+            long now = System.nanoTime();
+            refill(now);
+            long blockedFor = blockedUntilNanos - now;
+            if (blockedFor > 0) {
+                TimeUnit.NANOSECONDS.timedWait(this, blockedFor);
+                continue;
+            }
+            long requested = Math.min(Math.max(permits, 0), capacity);
+            if (available >= requested) {
+                available -= requested;
+                return;
+            }
+            long waitNanos = (long) Math.ceil((requested - available) / refillPerNano);
+            TimeUnit.NANOSECONDS.timedWait(this, Math.max(waitNanos, 1));
+        }
+    }
+
+    /**
+     * Applies the values from one response. Any argument may be null when the header was absent.
+     */
+    public synchronized void observe(Long limit, Long remaining, Duration resetIn) {
+        long now = System.nanoTime();
+        refill(now);
+        if (limit != null && limit > 0 && limit != capacity) {
+            capacity = limit;
+            refillPerNano = (double) capacity / NANOS_PER_MINUTE;
+            available = Math.min(available, capacity);
+        }
+        if (remaining != null) {
+            // Our own count already charges requests the server may not have seen yet, so only lower it.
+            available = Math.min(available, Math.max(remaining, 0));
+            if (remaining <= 0 && resetIn != null) {
+                blockedUntilNanos = Math.max(blockedUntilNanos, now + resetIn.toNanos());
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Stops all callers for {@code duration}, e.g. after a 429 with Retry-After.
+     */
+    public synchronized void pause(Duration duration) {
+        blockedUntilNanos = Math.max(blockedUntilNanos, System.nanoTime() + duration.toNanos());
+    }
+
+    public synchronized long getCapacity() {
+        return capacity;
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefillNanos;
+        if (elapsed > 0) {
+            available = Math.min(capacity, available + elapsed * refillPerNano);
+            lastRefillNanos = now;
+        }
+    }
+}
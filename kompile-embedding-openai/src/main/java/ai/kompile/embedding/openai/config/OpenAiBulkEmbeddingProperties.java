@@ -0,0 +1,96 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.embedding.openai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings for {@link ai.kompile.embedding.openai.OpenAiBulkEmbeddingClient}, the batched and
+ * rate-limited path used for large ingests. Connection settings default to the regular
+ * {@code spring.ai.openai.*} properties when left unset.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.embedding.openai.bulk")
+public class OpenAiBulkEmbeddingProperties {
+
+    /**
+     * Routes multi-text embedding through the bulk pipeline instead of a single provider call, including
+     * vector store ingest (the Spring AI OpenAI EmbeddingModel is wrapped, below the embedding cache).
+     */
+    private boolean enabled = false;
+
+    /**
+     * Defaults to spring.ai.openai.base-url, then https://api.openai.com.
+     */
+    private String baseUrl;
+
+    /**
+     * Defaults to spring.ai.openai.api-key.
+     */
+    private String apiKey;
+
+    /**
+     * Defaults to spring.ai.openai.embedding.options.model.
+     */
+    private String model;
+
+    /**
+     * Optional reduced output size for models that support it (text-embedding-3-*). Defaults to app.embedding.dimensions.
+     */
+    private Integer dimensions;
+
+    /**
+     * Estimated input tokens per request. The API rejects requests above 300k tokens.
+     */
+    private int maxTokensPerBatch = 250_000;
+
+    /**
+     * Inputs per request. The API accepts at most 2048.
+     */
+    private int maxItemsPerBatch = 2048;
+
+    /**
+     * Requests in flight at the same time.
+     */
+    private int concurrency = 4;
+
+    /**
+     * Starting token budget per minute. Replaced by the x-ratelimit-* response headers once seen.
+     */
+    private long tokensPerMinute = 1_000_000;
+
+    /**
+     * Starting request budget per minute. Replaced by the x-ratelimit-* response headers once seen.
+     */
+    private long requestsPerMinute = 3_000;
+
+    /**
+     * Retries for a batch that was throttled (429) or hit a server error (5xx).
+     */
+    private int maxRetries = 6;
+
+    private Duration initialBackoff = Duration.ofMillis(500);
+
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+    private Duration requestTimeout = Duration.ofSeconds(60);
+}
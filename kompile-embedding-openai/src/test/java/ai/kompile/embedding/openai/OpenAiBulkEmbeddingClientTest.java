@@ -0,0 +1,267 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.embedding.openai;
+
+import ai.kompile.core.embeddings.BulkEmbeddingModel;
+import ai.kompile.embedding.openai.config.OpenAiBulkEmbeddingProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the bulk client against a local stub of the embeddings endpoint. The stub embeds "text-N" as
+ * the one-element vector [N], so the tests can check that every vector lands at its input's position.
+ */
+class OpenAiBulkEmbeddingClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile int throttleFirstRequests;
+    private volatile int failAllWithStatus;
+    private HttpServer server;
+    private OpenAiBulkEmbeddingClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/embeddings", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        if (client != null) {
+            client.close();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void splitsByItemCountAndKeepsInputOrder() {
+        client = newClient(props(7, 1_000_000, 3));
+        List<String> texts = texts(50);
+
+        List<float[]> vectors = client.embedAll(texts);
+
+        assertInOrder(texts, vectors);
+        assertThat(batchSizes).hasSize(8).allMatch(size -> size <= 7);
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void splitsByEstimatedTokens() {
+        // "text-N" is a few tokens each, so a 10-token budget allows only a couple of inputs per request.
+        client = newClient(props(2048, 10, 2));
+        List<String> texts = texts(20);
+
+        List<float[]> vectors = client.embedAll(texts);
+
+        assertInOrder(texts, vectors);
+        assertThat(batchSizes.size()).isGreaterThan(5);
+    }
+
+    @Test
+    void retriesThrottledRequests() {
+        throttleFirstRequests = 2;
+        client = newClient(props(5, 1_000_000, 2));
+        List<String> texts = texts(10);
+
+        List<float[]> vectors = client.embedAll(texts);
+
+        assertInOrder(texts, vectors);
+        assertThat(requests.get()).isEqualTo(4);
+    }
+
+    @Test
+    void blankInputsAreSkippedAndReturnNull() {
+        client = newClient(props(10, 1_000_000, 1));
+        List<String> texts = Arrays.asList("text-0", "", null, "text-3");
+
+        List<float[]> vectors = client.embedAll(texts);
+
+        assertThat(vectors).hasSize(4);
+        assertThat(vectors.get(0)).containsExactly(0f);
+        assertThat(vectors.get(1)).isNull();
+        assertThat(vectors.get(2)).isNull();
+        assertThat(vectors.get(3)).containsExactly(3f);
+        assertThat(batchSizes).containsExactly(2);
+    }
+
+    @Test
+    void givesUpAfterMaxRetries() {
+        failAllWithStatus = 503;
+        OpenAiBulkEmbeddingProperties properties = props(10, 1_000_000, 1);
+        properties.setMaxRetries(2);
+        client = newClient(properties);
+
+        assertThatThrownBy(() -> client.embedAll(texts(3)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("503");
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void springAiModelSendsListsThroughTheBulkClient() {
+        client = newClient(props(10, 1_000_000, 1));
+        List<List<String>> delegateCalls = new CopyOnWriteArrayList<>();
+        org.springframework.ai.embedding.EmbeddingModel delegate = new org.springframework.ai.embedding.EmbeddingModel() {
+            @Override
+            public EmbeddingResponse call(EmbeddingRequest request) {
+                delegateCalls.add(request.getInstructions());
+                List<Embedding> embeddings = new ArrayList<>();
+                for (int i = 0; i < request.getInstructions().size(); i++) {
+                    embeddings.add(new Embedding(new float[]{-1f}, i));
+                }
+                return new EmbeddingResponse(embeddings);
+            }
+
+            @Override
+            public float[] embed(Document document) {
+                return embed(document.getText());
+            }
+        };
+        BulkEmbeddingModel model = new BulkEmbeddingModel(delegate, client);
+
+        List<float[]> vectors = model.embed(Arrays.asList("text-0", " ", "text-2"));
+
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(vectors.get(0)).containsExactly(0f);
+        assertThat(vectors.get(1)).containsExactly(-1f);
+        assertThat(vectors.get(2)).containsExactly(2f);
+        // The blank input is left to the provider's own client, as is a single query.
+        assertThat(model.embed("text-5")).containsExactly(-1f);
+        assertThat(delegateCalls).containsExactly(List.of(" "), List.of("text-5"));
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void parsesRateLimitResetDurations() {
+        assertThat(OpenAiBulkEmbeddingClient.parseDuration("20ms")).isEqualTo(Duration.ofMillis(20));
+        assertThat(OpenAiBulkEmbeddingClient.parseDuration("1.5s")).isEqualTo(Duration.ofMillis(1500));
+        assertThat(OpenAiBulkEmbeddingClient.parseDuration("6m0s")).isEqualTo(Duration.ofMinutes(6));
+        assertThat(OpenAiBulkEmbeddingClient.parseDuration("1h2m")).isEqualTo(Duration.ofMinutes(62));
+        assertThat(OpenAiBulkEmbeddingClient.parseDuration("soon")).isNull();
+    }
+
+    private OpenAiBulkEmbeddingClient newClient(OpenAiBulkEmbeddingProperties properties) {
+        return new OpenAiBulkEmbeddingClient(properties,
+                "http://127.0.0.1:" + server.getAddress().getPort(), "test-key", "text-embedding-3-small");
+    }
+
+    private static OpenAiBulkEmbeddingProperties props(int maxItems, int maxTokens, int concurrency) {
+        OpenAiBulkEmbeddingProperties properties = new OpenAiBulkEmbeddingProperties();
+        properties.setMaxItemsPerBatch(maxItems);
+        properties.setMaxTokensPerBatch(maxTokens);
+        properties.setConcurrency(concurrency);
+        properties.setInitialBackoff(Duration.ofMillis(10));
+        properties.setMaxBackoff(Duration.ofMillis(50));
+        return properties;
+    }
+
+    private static List<String> texts(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "text-" + i).toList();
+    }
+
+    private static void assertInOrder(List<String> texts, List<float[]> vectors) {
+        assertThat(vectors).hasSize(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            assertThat(vectors.get(i)).containsExactly((float) i);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        try {
+            int requestNumber = requests.incrementAndGet();
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            assertThat(exchange.getRequestHeaders().getFirst("Authorization")).isEqualTo("Bearer test-key");
+
+            exchange.getResponseHeaders().add("x-ratelimit-limit-tokens", "1000000");
+            exchange.getResponseHeaders().add("x-ratelimit-remaining-tokens", "999000");
+            exchange.getResponseHeaders().add("x-ratelimit-reset-tokens", "6ms");
+            if (failAllWithStatus != 0) {
+                respond(exchange, failAllWithStatus, "{\"error\":{\"message\":\"unavailable\"}}");
+                return;
+            }
+            if (requestNumber <= throttleFirstRequests) {
+                exchange.getResponseHeaders().add("retry-after-ms", "20");
+                respond(exchange, 429, "{\"error\":{\"message\":\"rate limited\"}}");
+                return;
+            }
+
+            // Slow enough that concurrent requests actually overlap.
+            Thread.sleep(20);
+            List<String> inputs = new ArrayList<>();
+            request.path("input").forEach(node -> inputs.add(node.asText()));
+            batchSizes.add(inputs.size());
+
+            ObjectNode response = objectMapper.createObjectNode();
+            ArrayNode data = response.putArray("data");
+            // Reverse the order to prove the client maps results by "index", not by position.
+            for (int i = inputs.size() - 1; i >= 0; i--) {
+                ObjectNode item = data.addObject();
+                item.put("index", i);
+                item.putArray("embedding").add(Float.parseFloat(inputs.get(i).substring("text-".length())));
+            }
+            respond(exchange, 200, objectMapper.writeValueAsString(response));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.embedding.transformer;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.djl.util.PairList;
+import ai.kompile.core.retrievers.Reranker;
+import ai.kompile.embedding.transformer.config.CrossEncoderProperties;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.LongBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link Reranker} backed by an ONNX cross-encoder (a BERT-style model that reads query and passage
+ * together and emits one relevance logit). Pairs are tokenized as {@code [CLS] query [SEP] passage [SEP]},
+ * run in batches padded to the longest pair of the batch, and scored with the raw logit.
+ * <p>
+ * ONNX Runtime sessions are thread-safe, so concurrent queries share one session.
+ */
+public class OnnxCrossEncoderReranker implements Reranker, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OnnxCrossEncoderReranker.class);
+
+    private final OrtEnvironment environment = OrtEnvironment.getEnvironment();
+    private final OrtSession session;
+    private final HuggingFaceTokenizer tokenizer;
+    private final String outputName;
+    private final Set<String> inputNames;
+    private final int batchSize;
+
+    public OnnxCrossEncoderReranker(Resource modelResource,
+                                    Resource tokenizerResource,
+                                    CrossEncoderProperties properties) throws IOException, OrtException {
+        this.outputName = properties.getModelOutputName();
+        this.batchSize = Math.max(1, properties.getBatchSize());
+
+        Map<String, String> tokenizerOptions = Map.of(
+                "padding", "false",
+                "truncation", "true",
+                "maxLength", String.valueOf(properties.getMaxSequenceLength()));
+        try (InputStream in = tokenizerResource.getInputStream()) {
+            this.tokenizer = HuggingFaceTokenizer.newInstance(in, tokenizerOptions);
+        }
+
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            if (properties.getIntraOpThreads() > 0) {
+                options.setIntraOpNumThreads(properties.getIntraOpThreads());
+            }
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.valueOf(properties.getOptimizationLevel()));
+            this.session = modelResource.isFile()
+                    ? environment.createSession(modelResource.getFile().getAbsolutePath(), options)
+                    : environment.createSession(modelResource.getContentAsByteArray(), options);
+        }
+        this.inputNames = session.getInputNames();
+        if (!session.getOutputNames().contains(outputName)) {
+            throw new IllegalStateException("ONNX model has no output named '" + outputName + "'. Available: "
+                    + session.getOutputNames());
+        }
+        logger.info("OnnxCrossEncoderReranker loaded {} (batchSize={}, maxSequenceLength={}).",
+                modelResource.getDescription(), batchSize, properties.getMaxSequenceLength());
+    }
+
+    @Override
+    public float[] score(String query, List<String> passages) {
+        float[] scores = new float[passages.size()];
+        for (int start = 0; start < passages.size(); start += batchSize) {
+            int end = Math.min(start + batchSize, passages.size());
+            PairList<String, String> pairs = new PairList<>(end - start);
+            for (int i = start; i < end; i++) {
+                String passage = passages.get(i);
+                pairs.add(query, passage == null ? "" : passage);
+            }
+            try {
+                runBatch(tokenizer.batchEncode(pairs), scores, start);
+            } catch (OrtException e) {
+                throw new IllegalStateException("Cross-encoder inference failed: " + e.getMessage(), e);
+            }
+        }
+        return scores;
+    }
+
+    @Override
+    public void close() {
+        try {
+            session.close();
+        } catch (OrtException e) {
+            logger.warn("Failed to close ONNX session: {}", e.getMessage());
+        }
+        tokenizer.close();
+    }
+
+    private void runBatch(Encoding[] encodings, float[] scores, int offset) throws OrtException {
+        int maxLength = 0;
+        for (Encoding encoding : encodings) {
+            maxLength = Math.max(maxLength, encoding.getIds().length);
+        }
+        long[] ids = new long[encodings.length * maxLength];
+        long[] mask = new long[encodings.length * maxLength];
+        long[] typeIds = new long[encodings.length * maxLength];
+        for (int row = 0; row < encodings.length; row++) {
+            Encoding encoding = encodings[row];
+            int rowOffset = row * maxLength;
+            System.arraycopy(encoding.getIds(), 0, ids, rowOffset, encoding.getIds().length);
+            System.arraycopy(encoding.getAttentionMask(), 0, mask, rowOffset, encoding.getAttentionMask().length);
+            System.arraycopy(encoding.getTypeIds(), 0, typeIds, rowOffset, encoding.getTypeIds().length);
+        }
+        long[] shape = {encodings.length, maxLength};
+
+        Map<String, OnnxTensor> inputs = new HashMap<>();
+        try {
+            putInput(inputs, "input_ids", ids, shape);
+            putInput(inputs, "attention_mask", mask, shape);
+            putInput(inputs, "token_type_ids", typeIds, shape);
+            try (OrtSession.Result result = session.run(inputs)) {
+                float[][] logits = (float[][]) result.get(outputName)
+                        .orElseThrow(() -> new IllegalStateException("ONNX model has no output named '" + outputName + "'"))
+                        .getValue();
+                for (int row = 0; row < encodings.length; row++) {
+                    scores[offset + row] = logits[row][logits[row].length - 1];
+                }
+            }
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+        }
+    }
+
+    private void putInput(Map<String, OnnxTensor> inputs, String name, long[] data, long[] shape) throws OrtException {
+        if (inputNames.contains(name)) {
+            inputs.put(name, OnnxTensor.createTensor(environment, LongBuffer.wrap(data), shape));
+        }
+    }
+}
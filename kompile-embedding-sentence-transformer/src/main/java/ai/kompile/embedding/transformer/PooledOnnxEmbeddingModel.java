@@ -0,0 +1,319 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.embedding.transformer;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.kompile.core.embeddings.IdentifiedEmbeddingModel;
+import ai.kompile.embedding.transformer.config.OnnxPoolProperties;
+import ai.onnxruntime.NodeInfo;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * A Spring AI EmbeddingModel for sentence-transformer ONNX models that runs inference on a pool of
+ * ONNX Runtime sessions instead of the single session of {@code TransformersEmbeddingModel}.
+ * <p>
+ * A request is tokenized once, sorted by token length and cut into batches that are padded only to their
+ * own longest input. Batches are spread across the sessions, each driven by one worker thread, so a bulk
+ * ingest keeps {@code sessions x intraOpThreads} cores busy. Pooling (attention-masked mean over
+ * {@code last_hidden_state}) matches TransformersEmbeddingModel, so vectors are interchangeable.
+ */
+public class PooledOnnxEmbeddingModel implements org.springframework.ai.embedding.EmbeddingModel, IdentifiedEmbeddingModel,
+        AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledOnnxEmbeddingModel.class);
+
+    private final OrtEnvironment environment = OrtEnvironment.getEnvironment();
+    private final List<OrtSession> sessions = new ArrayList<>();
+    private final BlockingQueue<OrtSession> idleSessions;
+    private final HuggingFaceTokenizer tokenizer;
+    private final String outputName;
+    private final Set<String> inputNames;
+    private final int batchSize;
+    private final boolean normalize;
+    private final ExecutorService executor;
+    private final String modelId;
+    private volatile int dimensions;
+
+    public PooledOnnxEmbeddingModel(Resource modelResource,
+                                    Resource tokenizerResource,
+                                    String outputName,
+                                    OnnxPoolProperties properties) throws IOException, OrtException {
+        this(modelResource, modelResource.getDescription(), tokenizerResource, outputName, properties);
+    }
+
+    /**
+     * @param modelId the URI the model was loaded from, used as the embedding cache key
+     */
+    public PooledOnnxEmbeddingModel(Resource modelResource,
+                                    String modelId,
+                                    Resource tokenizerResource,
+                                    String outputName,
+                                    OnnxPoolProperties properties) throws IOException, OrtException {
+        this.modelId = modelId;
+        int intraOpThreads = Math.max(1, properties.getIntraOpThreads());
+        int sessionCount = properties.getSessions() > 0
+                ? properties.getSessions()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / intraOpThreads);
+        this.outputName = outputName;
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.normalize = properties.isNormalize();
+
+        Map<String, String> tokenizerOptions = Map.of(
+                "padding", "false",
+                "truncation", "true",
+                "maxLength", String.valueOf(properties.getMaxSequenceLength()));
+        try (InputStream in = tokenizerResource.getInputStream()) {
+            this.tokenizer = HuggingFaceTokenizer.newInstance(in, tokenizerOptions);
+        }
+
+        byte[] modelBytes = modelResource.isFile() ? null : modelResource.getContentAsByteArray();
+        String modelPath = modelResource.isFile() ? modelResource.getFile().getAbsolutePath() : null;
+        for (int i = 0; i < sessionCount; i++) {
+            try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+                options.setIntraOpNumThreads(intraOpThreads);
+                options.setInterOpNumThreads(Math.max(1, properties.getInterOpThreads()));
+                options.setExecutionMode(properties.getInterOpThreads() > 1
+                        ? OrtSession.SessionOptions.ExecutionMode.PARALLEL
+                        : OrtSession.SessionOptions.ExecutionMode.SEQUENTIAL);
+                options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.valueOf(properties.getOptimizationLevel()));
+                sessions.add(modelPath != null
+                        ? environment.createSession(modelPath, options)
+                        : environment.createSession(modelBytes, options));
+            }
+        }
+        this.idleSessions = new ArrayBlockingQueue<>(sessionCount, false, sessions);
+        this.inputNames = sessions.get(0).getInputNames();
+        this.dimensions = outputDimensions(sessions.get(0));
+
+        AtomicInteger workerCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(sessionCount, r -> {
+            Thread t = new Thread(r, "onnx-embedding-" + workerCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        logger.info("PooledOnnxEmbeddingModel loaded {} with {} session(s) (intraOpThreads={}, interOpThreads={}, optimization={}, batchSize={}).",
+                modelResource.getDescription(), sessionCount, intraOpThreads, properties.getInterOpThreads(),
+                properties.getOptimizationLevel(), batchSize);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        float[][] vectors = embedAll(texts);
+        List<Embedding> embeddings = new ArrayList<>(vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            embeddings.add(new Embedding(vectors[i], i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public String getModelId() {
+        return modelId;
+    }
+
+    @Override
+    public int dimensions() {
+        if (dimensions <= 0) {
+            dimensions = embed("test").length;
+        }
+        return dimensions;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (OrtSession session : sessions) {
+            try {
+                session.close();
+            } catch (OrtException e) {
+                logger.warn("Failed to close ONNX session: {}", e.getMessage());
+            }
+        }
+        tokenizer.close();
+    }
+
+    private float[][] embedAll(List<String> texts) {
+        float[][] vectors = new float[texts.size()][];
+        if (texts.isEmpty()) {
+            return vectors;
+        }
+        Encoding[] encodings = tokenizer.batchEncode(texts.stream().map(t -> t == null ? "" : t).toList());
+        // Sorting by length keeps the padding inside each batch small.
+        int[] order = IntStream.range(0, encodings.length).boxed()
+                .sorted(Comparator.comparingInt(i -> encodings[i].getIds().length))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int start = 0; start < order.length; start += batchSize) {
+            int[] batch = Arrays.copyOfRange(order, start, Math.min(start + batchSize, order.length));
+            futures.add(executor.submit(() -> {
+                runBatch(batch, encodings, vectors);
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for ONNX inference", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("ONNX inference failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return vectors;
+    }
+
+    private void runBatch(int[] batch, Encoding[] encodings, float[][] vectors) throws InterruptedException, OrtException {
+        int maxLength = 0;
+        for (int index : batch) {
+            maxLength = Math.max(maxLength, encodings[index].getIds().length);
+        }
+        long[] ids = new long[batch.length * maxLength];
+        long[] mask = new long[batch.length * maxLength];
+        long[] typeIds = new long[batch.length * maxLength];
+        for (int row = 0; row < batch.length; row++) {
+            Encoding encoding = encodings[batch[row]];
+            int offset = row * maxLength;
+            System.arraycopy(encoding.getIds(), 0, ids, offset, encoding.getIds().length);
+            System.arraycopy(encoding.getAttentionMask(), 0, mask, offset, encoding.getAttentionMask().length);
+            System.arraycopy(encoding.getTypeIds(), 0, typeIds, offset, encoding.getTypeIds().length);
+        }
+        long[] shape = {batch.length, maxLength};
+
+        OrtSession session = idleSessions.take();
+        Map<String, OnnxTensor> inputs = new HashMap<>();
+        try {
+            putInput(inputs, "input_ids", ids, shape);
+            putInput(inputs, "attention_mask", mask, shape);
+            putInput(inputs, "token_type_ids", typeIds, shape);
+            try (OrtSession.Result result = session.run(inputs)) {
+                Object output = result.get(outputName)
+                        .orElseThrow(() -> new IllegalStateException("ONNX model has no output named '" + outputName + "'"))
+                        .getValue();
+                for (int row = 0; row < batch.length; row++) {
+                    float[] vector = output instanceof float[][][] hidden
+                            ? meanPool(hidden[row], mask, row * maxLength)
+                            : ((float[][]) output)[row];
+                    vectors[batch[row]] = normalize ? l2Normalize(vector) : vector;
+                }
+            }
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+            idleSessions.put(session);
+        }
+    }
+
+    private void putInput(Map<String, OnnxTensor> inputs, String name, long[] data, long[] shape) throws OrtException {
+        // Models exported without token_type_ids (e.g. DistilBERT) reject unknown inputs.
+        if (inputNames.contains(name)) {
+            inputs.put(name, OnnxTensor.createTensor(environment, LongBuffer.wrap(data), shape));
+        }
+    }
+
+    private static float[] meanPool(float[][] tokens, long[] mask, int maskOffset) {
+        float[] pooled = new float[tokens[0].length];
+        int count = 0;
+        for (int t = 0; t < tokens.length; t++) {
+            if (mask[maskOffset + t] == 0) {
+                continue;
+            }
+            count++;
+            float[] token = tokens[t];
+            for (int d = 0; d < pooled.length; d++) {
+                pooled[d] += token[d];
+            }
+        }
+        if (count > 0) {
+            for (int d = 0; d < pooled.length; d++) {
+                pooled[d] /= count;
+            }
+        }
+        return pooled;
+    }
+
+    private static float[] l2Normalize(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        double norm = Math.sqrt(sum);
+        if (norm > 0) {
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = (float) (vector[i] / norm);
+            }
+        }
+        return vector;
+    }
+
+    private int outputDimensions(OrtSession session) throws OrtException {
+        NodeInfo output = session.getOutputInfo().get(outputName);
+        if (output == null) {
+            throw new IllegalStateException("ONNX model has no output named '" + outputName + "'. Available: "
+                    + session.getOutputNames());
+        }
+        if (output.getInfo() instanceof TensorInfo tensorInfo) {
+            long[] shape = tensorInfo.getShape();
+            return (int) shape[shape.length - 1];
+        }
+        return -1;
+    }
+}
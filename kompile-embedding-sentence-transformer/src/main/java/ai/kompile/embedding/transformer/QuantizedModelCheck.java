@@ -0,0 +1,138 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.embedding.transformer;
+
+import ai.kompile.embedding.transformer.config.OnnxPoolProperties;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Offline check for an int8-quantized model before it is configured as
+ * {@code app.embedding.transformer.pool.quantized-model-uri}.
+ * <p>
+ * Embeds a sample set (one text per line) with the float and the quantized model. It reports the cosine
+ * similarity between the two vectors of each text and how often both models pick the same nearest
+ * neighbour within the sample set, which is what retrieval quality depends on. It also reports
+ * embedding throughput for both variants.
+ * <pre>
+ * java -cp ... ai.kompile.embedding.transformer.QuantizedModelCheck \
+ *     model.onnx model_int8.onnx tokenizer.json samples.txt [min-mean-cosine=0.98] [rounds=3]
+ * </pre>
+ * Exits with status 1 when the mean cosine similarity is below the threshold.
+ */
+public class QuantizedModelCheck {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: QuantizedModelCheck <float-model.onnx> <quantized-model.onnx> <tokenizer.json> <samples.txt> [min-mean-cosine] [rounds]");
+            System.exit(2);
+        }
+        FileSystemResource tokenizer = new FileSystemResource(args[2]);
+        List<String> samples = Files.readAllLines(Path.of(args[3]), StandardCharsets.UTF_8).stream()
+                .filter(line -> !line.isBlank())
+                .toList();
+        double minMeanCosine = args.length > 4 ? Double.parseDouble(args[4]) : 0.98;
+        int rounds = args.length > 5 ? Integer.parseInt(args[5]) : 3;
+        if (samples.size() < 2) {
+            System.err.println("Need at least two sample texts.");
+            System.exit(2);
+        }
+
+        OnnxPoolProperties properties = new OnnxPoolProperties();
+        List<float[]> floatVectors;
+        List<float[]> quantizedVectors;
+        double floatThroughput;
+        double quantizedThroughput;
+        try (PooledOnnxEmbeddingModel model = new PooledOnnxEmbeddingModel(new FileSystemResource(args[0]), tokenizer, "last_hidden_state", properties)) {
+            floatVectors = model.embed(samples);
+            floatThroughput = throughput(model, samples, rounds);
+        }
+        try (PooledOnnxEmbeddingModel model = new PooledOnnxEmbeddingModel(new FileSystemResource(args[1]), tokenizer, "last_hidden_state", properties)) {
+            quantizedVectors = model.embed(samples);
+            quantizedThroughput = throughput(model, samples, rounds);
+        }
+
+        double[] cosines = new double[samples.size()];
+        for (int i = 0; i < cosines.length; i++) {
+            cosines[i] = cosine(floatVectors.get(i), quantizedVectors.get(i));
+        }
+        double[] sorted = cosines.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(cosines).average().orElse(0);
+        int sameNeighbour = 0;
+        for (int i = 0; i < samples.size(); i++) {
+            if (nearestNeighbour(floatVectors, i) == nearestNeighbour(quantizedVectors, i)) {
+                sameNeighbour++;
+            }
+        }
+
+        System.out.printf("Samples:                      %d%n", samples.size());
+        System.out.printf("Cosine(float, int8) mean:     %.4f%n", mean);
+        System.out.printf("Cosine(float, int8) p05/min:  %.4f / %.4f%n", sorted[(int) (sorted.length * 0.05)], sorted[0]);
+        System.out.printf("Nearest-neighbour agreement:  %.1f%%%n", 100.0 * sameNeighbour / samples.size());
+        System.out.printf("Throughput float:             %.1f texts/s%n", floatThroughput);
+        System.out.printf("Throughput int8:              %.1f texts/s (%.2fx)%n", quantizedThroughput, quantizedThroughput / floatThroughput);
+        if (mean < minMeanCosine) {
+            System.out.printf("FAIL: mean cosine %.4f is below %.4f%n", mean, minMeanCosine);
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static double throughput(PooledOnnxEmbeddingModel model, List<String> samples, int rounds) {
+        model.embed(samples); // warm-up
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            model.embed(samples);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return samples.size() * (double) rounds / seconds;
+    }
+
+    private static int nearestNeighbour(List<float[]> vectors, int query) {
+        int best = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < vectors.size(); i++) {
+            if (i == query) {
+                continue;
+            }
+            double score = cosine(vectors.get(query), vectors.get(i));
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return (normA == 0 || normB == 0) ? 0 : dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+}
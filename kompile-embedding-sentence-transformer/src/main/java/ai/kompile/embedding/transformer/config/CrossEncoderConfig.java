@@ -0,0 +1,41 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.embedding.transformer.config;
+
+import ai.kompile.embedding.transformer.OnnxCrossEncoderReranker;
+import org.springframework.ai.transformers.ResourceCacheService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Registers {@link OnnxCrossEncoderReranker} when {@code app.rerank.cross-encoder.enabled=true}. Model and
+ * tokenizer are downloaded once into the same cache as the transformer embedding model.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.rerank.cross-encoder.enabled", havingValue = "true")
+public class CrossEncoderConfig {
+
+    @Bean
+    public OnnxCrossEncoderReranker onnxCrossEncoderReranker(CrossEncoderProperties properties, Environment environment) throws Exception {
+        String cacheDirectory = environment.getProperty("spring.ai.embedding.transformer.cache.directory");
+        ResourceCacheService cache = cacheDirectory != null ? new ResourceCacheService(cacheDirectory) : new ResourceCacheService();
+        return new OnnxCrossEncoderReranker(cache.getCachedResource(properties.getModelUri()),
+                cache.getCachedResource(properties.getTokenizerUri()), properties);
+    }
+}
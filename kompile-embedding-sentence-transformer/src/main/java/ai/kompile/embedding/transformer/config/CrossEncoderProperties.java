@@ -0,0 +1,66 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.embedding.transformer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for {@link ai.kompile.embedding.transformer.OnnxCrossEncoderReranker}. The defaults point at the
+ * ONNX export of cross-encoder/ms-marco-MiniLM-L-6-v2, a small passage-ranking model that runs well on CPU.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.rerank.cross-encoder")
+public class CrossEncoderProperties {
+
+    /**
+     * Registers the ONNX cross-encoder as the application's Reranker.
+     */
+    private boolean enabled = false;
+
+    private String modelUri = "https://huggingface.co/cross-encoder/ms-marco-MiniLM-L-6-v2/resolve/main/onnx/model.onnx";
+
+    private String tokenizerUri = "https://huggingface.co/cross-encoder/ms-marco-MiniLM-L-6-v2/resolve/main/tokenizer.json";
+
+    /**
+     * Output holding the relevance logits, shaped [batch, 1] (or [batch, 2], in which case the last column is used).
+     */
+    private String modelOutputName = "logits";
+
+    /**
+     * (query, passage) pairs per inference call.
+     */
+    private int batchSize = 16;
+
+    /**
+     * Pairs longer than this (in tokens) are truncated, passage first.
+     */
+    private int maxSequenceLength = 512;
+
+    /**
+     * Threads ONNX Runtime uses inside one operator. 0 lets ONNX Runtime use all cores, which gives the
+     * lowest latency for a single query.
+     */
+    private int intraOpThreads = 0;
+
+    /**
+     * ONNX Runtime graph optimization level: NO_OPT, BASIC_OPT, EXTENDED_OPT or ALL_OPT.
+     */
+    private String optimizationLevel = "ALL_OPT";
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.embedding.transformer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for {@link ai.kompile.embedding.transformer.PooledOnnxEmbeddingModel}. Model, tokenizer and
+ * output name default to the regular {@code spring.ai.embedding.transformer.*} properties when left unset.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.embedding.transformer.pool")
+public class OnnxPoolProperties {
+
+    /**
+     * Replaces the single-session Spring AI TransformersEmbeddingModel with the pooled implementation.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Number of ONNX sessions, each served by its own worker thread. 0 means cores / intra-op-threads.
+     */
+    private int sessions = 0;
+
+    /**
+     * Threads ONNX Runtime uses inside one operator. Keep sessions x intra-op-threads at or below the core count.
+     */
+    private int intraOpThreads = 1;
+
+    /**
+     * Threads used to run independent graph nodes in parallel. 1 runs the graph sequentially.
+     */
+    private int interOpThreads = 1;
+
+    /**
+     * ONNX Runtime graph optimization level: NO_OPT, BASIC_OPT, EXTENDED_OPT or ALL_OPT.
+     */
+    private String optimizationLevel = "ALL_OPT";
+
+    /**
+     * Texts per inference call. Texts are sorted by token length first, so each batch pads to a similar length.
+     */
+    private int batchSize = 32;
+
+    /**
+     * Inputs longer than this (in tokens) are truncated.
+     */
+    private int maxSequenceLength = 512;
+
+    /**
+     * Defaults to spring.ai.embedding.transformer.onnx.model-uri.
+     */
+    private String modelUri;
+
+    /**
+     * Optional int8-quantized variant of the model. When set it is loaded instead of model-uri.
+     * ONNX Runtime for Java cannot quantize, so produce it offline, e.g. with onnxruntime.quantization.quantize_dynamic
+     * (weight_type=QInt8), and verify it with {@link ai.kompile.embedding.transformer.QuantizedModelCheck}.
+     */
+    private String quantizedModelUri;
+
+    /**
+     * Defaults to spring.ai.embedding.transformer.tokenizer.uri.
+     */
+    private String tokenizerUri;
+
+    /**
+     * Defaults to spring.ai.embedding.transformer.onnx.model-output-name, then last_hidden_state.
+     */
+    private String modelOutputName;
+
+    /**
+     * L2-normalizes the pooled vectors. Off by default to match TransformersEmbeddingModel.
+     */
+    private boolean normalize = false;
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 Kompile Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.kompile.embedding.transformer.config;
+
+import ai.kompile.core.embeddings.config.ProviderSettings;
+import ai.kompile.embedding.transformer.PooledOnnxEmbeddingModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.transformers.ResourceCacheService;
+import org.springframework.ai.transformers.TransformersEmbeddingModel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+/**
+ * Registers {@link PooledOnnxEmbeddingModel} as the primary Spring AI EmbeddingModel when
+ * {@code app.embedding.transformer.pool.enabled=true}. Model and tokenizer are resolved from the same
+ * properties (and the same download cache) as Spring AI's transformers auto-configuration.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.embedding.transformer.pool.enabled", havingValue = "true")
+public class PooledOnnxEmbeddingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledOnnxEmbeddingConfig.class);
+
+    @Bean
+    @Primary
+    public PooledOnnxEmbeddingModel pooledOnnxEmbeddingModel(OnnxPoolProperties properties, Environment environment) throws Exception {
+        String modelUri = ProviderSettings.firstNonBlank(properties.getQuantizedModelUri(), properties.getModelUri(),
+                environment.getProperty("spring.ai.embedding.transformer.onnx.model-uri"),
+                TransformersEmbeddingModel.DEFAULT_ONNX_MODEL_URI);
+        String tokenizerUri = ProviderSettings.firstNonBlank(properties.getTokenizerUri(),
+                environment.getProperty("spring.ai.embedding.transformer.tokenizer.uri"),
+                TransformersEmbeddingModel.DEFAULT_ONNX_TOKENIZER_URI);
+        String outputName = ProviderSettings.firstNonBlank(properties.getModelOutputName(),
+                environment.getProperty("spring.ai.embedding.transformer.onnx.model-output-name"),
+                TransformersEmbeddingModel.DEFAULT_MODEL_OUTPUT_NAME);
+
+        String cacheDirectory = environment.getProperty("spring.ai.embedding.transformer.cache.directory");
+        ResourceCacheService cache = cacheDirectory != null ? new ResourceCacheService(cacheDirectory) : new ResourceCacheService();
+        if (StringUtils.hasText(properties.getQuantizedModelUri())) {
+            logger.info("Using quantized ONNX model {}.", modelUri);
+        }
+        return new PooledOnnxEmbeddingModel(cache.getCachedResource(modelUri), modelUri,
+                cache.getCachedResource(tokenizerUri), outputName, properties);
+    }
+}
@@ -17,6 +17,8 @@
 package ai.kompile.tool.filesystem; // New package
 
 import ai.kompile.tool.filesystem.config.FilesystemToolProperties; // Import from this module's config
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
@@ -30,6 +32,8 @@ import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -133,6 +137,10 @@ public class FilesystemToolImpl { // Renamed class for convention, original name
     @Tool(name = "list_files",
             description = "Lists files and directories within a configured and aliased filesystem root. Provide rootAlias (e.g., 'default') and an optional relative subPath.")
     public Map<String, Object> listFiles(ListFilesInput input) {
+        return timed("list_files", () -> listFilesUntimed(input));
+    }
+
+    private Map<String, Object> listFilesUntimed(ListFilesInput input) {
         logger.info("FilesystemTool: Executing list_files with input: {}", input);
         if (input.rootAlias() == null || input.rootAlias().trim().isEmpty()) {
             return Map.of("error", "rootAlias cannot be empty.");
@@ -165,6 +173,10 @@ public class FilesystemToolImpl { // Renamed class for convention, original name
     @Tool(name = "read_file",
             description = "Reads the content of a text file from a configured and aliased filesystem root. Provide rootAlias (e.g., 'default') and the relative filePath.")
     public Map<String, Object> readFile(ReadFileInput input) {
+        return timed("read_file", () -> readFileUntimed(input));
+    }
+
+    private Map<String, Object> readFileUntimed(ReadFileInput input) {
         logger.info("FilesystemTool: Executing read_file with input: {}", input);
         if (input.rootAlias() == null || input.rootAlias().trim().isEmpty() ||
                 input.filePath() == null || input.filePath().trim().isEmpty()) {
@@ -203,4 +215,24 @@ public class FilesystemToolImpl { // Renamed class for convention, original name
             return Map.of("error", "IO Error: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Same kompile.rag.stage series (stage, provider, outcome) that kompile-app-core records for the other RAG stages.
+    private static Map<String, Object> timed(String tool, Supplier<Map<String, Object>> call) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            Map<String, Object> result = call.get();
+            outcome = result.containsKey("error") ? "error" : "success";
+            return result;
+        } finally {
+            Timer.builder("kompile.rag.stage")
+                    .description("Latency of one RAG pipeline stage")
+                    .tag("stage", "tool_call")
+                    .tag("provider", tool)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(Metrics.globalRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
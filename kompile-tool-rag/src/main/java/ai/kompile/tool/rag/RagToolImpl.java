@@ -16,6 +16,7 @@
 
 package ai.kompile.tool.rag; // New package
 
+import ai.kompile.core.rag.RagStageMetrics;
 import ai.kompile.core.retrievers.DocumentRetriever; // Import from core abstractions
 // Assuming RagQueryInput will be defined here or in core DTOs.
 // If RagQueryInput is very specific to this tool, defining it here is fine.
@@ -23,6 +24,7 @@ import ai.kompile.core.retrievers.DocumentRetriever; // Import from core abstrac
 // For now, keeping it as an inner record as in your original code.
 
 import com.fasterxml.jackson.databind.ObjectMapper; // Still needed if you manually work with JSON arguments for other tools
+import io.micrometer.core.instrument.Metrics;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -58,6 +60,18 @@ public class RagToolImpl {
     @Tool(name = "rag_query",
             description = "Queries the document corpus using the configured retriever and returns relevant information snippets. Optionally, provide maxResults to limit document count (default 3, max 10).")
     public Map<String, Object> executeRagQuery(RagQueryInput input) {
+        long start = System.nanoTime();
+        Map<String, Object> result = null;
+        try {
+            result = executeRagQueryUntimed(input);
+            return result;
+        } finally {
+            String outcome = result == null || result.containsKey("error") ? RagStageMetrics.ERROR : RagStageMetrics.SUCCESS;
+            RagStageMetrics.record(Metrics.globalRegistry, "tool_call", "rag_query", outcome, System.nanoTime() - start);
+        }
+    }
+
+    private Map<String, Object> executeRagQueryUntimed(RagQueryInput input) {
         logger.info("RagTool: Executing RAG Query with input: {}", input);
 
         if (input.query() == null || input.query().trim().isEmpty()) {